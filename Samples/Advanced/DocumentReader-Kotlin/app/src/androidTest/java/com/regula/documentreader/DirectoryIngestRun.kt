@@ -0,0 +1,54 @@
+package com.regula.documentreader
+
+import android.os.Bundle
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * Headless entry point for [DirectoryIngest], the app starts without any activity:
+ *
+ * adb push corpus/. /sdcard/Android/data/com.regula.documentreader/files/ingest
+ * adb shell am instrument -w -e class com.regula.documentreader.DirectoryIngestRun \
+ *     [-e input <dir>] [-e output <dir>] [-e queueDepth <n>] \
+ *     com.regula.documentreader.test/androidx.test.runner.AndroidJUnitRunner
+ *
+ * Results and the report are written to files/ingest-results/<timestamp> of the external files
+ * directory unless output is given, the report is also printed as instrumentation status.
+ */
+@RunWith(AndroidJUnit4::class)
+class DirectoryIngestRun {
+    @Test
+    fun ingest() {
+        val instrumentation = InstrumentationRegistry.getInstrumentation()
+        val context = instrumentation.targetContext
+        val arguments = InstrumentationRegistry.getArguments()
+        val input = arguments.getString("input")?.let { File(it) }
+            ?: File(context.getExternalFilesDir(null), "ingest")
+        val output = arguments.getString("output")?.let { File(it) }
+            ?: File(context.getExternalFilesDir(null), "ingest-results/${System.currentTimeMillis()}")
+        val queueDepth = arguments.getString("queueDepth")?.toInt()
+            ?: BatchRecognizer.DEFAULT_QUEUE_DEPTH
+
+        instrumentation.runOnMainSync { ReaderBootstrap.start(context) }
+        // a timeout fails the run with a TimeoutException instead
+        val ready = ReaderBootstrap.awaitReady(10, TimeUnit.MINUTES)
+        assertTrue("Reader failed to initialize: ${ReaderBootstrap.error}", ready)
+
+        val report = DirectoryIngest(context, input, output, queueDepth).run()
+        val text = report.toJson().toString(2)
+        Log.i(TAG, "$output\n$text")
+        instrumentation.sendStatus(0, Bundle().apply {
+            putString("stream", "$output\n$text\n")
+        })
+    }
+
+    companion object {
+        private const val TAG = "DirectoryIngest"
+    }
+}
@@ -0,0 +1,175 @@
+package com.regula.documentreader
+
+import android.os.Bundle
+import android.os.Parcel
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.Serializable
+
+/**
+ * The Bundles of the results screen through a Parcel, as the framework writes them on a
+ * configuration change or when the process is killed: what they were with putSerializable
+ * against the (handle, tab, group) references used now.
+ *
+ * adb shell am instrument -w -e class com.regula.documentreader.GroupArgumentsBenchmark \
+ *     [-e rounds <n>] com.regula.documentreader.test/androidx.test.runner.AndroidJUnitRunner
+ *
+ * Bytes and the p50/p90 of marshalling and unmarshalling in µs are printed as instrumentation
+ * status, per group for GroupFragment arguments and per activity for the saved state.
+ */
+@RunWith(AndroidJUnit4::class)
+class GroupArgumentsBenchmark {
+    /**
+     * What ResultsTabFragment put into the saved state when it was Serializable: Fragment itself
+     * isn't, so only its own fields were written.
+     */
+    private class LegacyResultsTabFragment(
+        val pickerDataReference: Int,
+        var numberPickerIndex: Int
+    ) : Serializable
+
+    private class Measurement(val bytes: Int, val marshallUs: List<Double>, val unmarshallUs: List<Double>)
+
+    private val tabs = List(3) { tab ->
+        List(GROUPS) { group ->
+            GroupedAttributes("Group $tab.$group", MutableList(ATTRIBUTES) {
+                Attribute("Field $it", "Value of field $it in group $group", 0, 1, group)
+            })
+        }
+    }
+
+    private val rounds = InstrumentationRegistry.getArguments().getString("rounds")?.toInt() ?: 200
+
+    private fun legacyArguments(group: GroupedAttributes) = Bundle().apply {
+        putSerializable("groupedAttributes", group)
+        putLong(ResultsStore.EXTRA_HANDLE, HANDLE)
+    }
+
+    // fragments are created on the main thread, as FragmentStateAdapter does
+    private fun arguments(tab: Int, group: Int): Bundle {
+        var arguments: Bundle? = null
+        InstrumentationRegistry.getInstrumentation().runOnMainSync {
+            arguments = GroupFragment.newInstance(HANDLE, tab, group).requireArguments()
+        }
+        return arguments!!
+    }
+
+    private fun legacyState() = state().apply {
+        putSerializable("resultsFragment", LegacyResultsTabFragment(ResultsActivity.RESULTS, 1))
+        putSerializable("compareFragment", LegacyResultsTabFragment(ResultsActivity.COMPARE, 0))
+        putSerializable("rfidFragment", LegacyResultsTabFragment(ResultsActivity.RFID, 0))
+    }
+
+    private fun state() = Bundle().apply {
+        putInt("selectedTabIndex", ResultsActivity.RESULTS)
+        putInt("resultsIndex", 1)
+        putInt("compareIndex", 0)
+        putInt("rfidIndex", 0)
+    }
+
+    @Test
+    fun groupArguments() {
+        val bundles = tabs.flatMapIndexed { tab, groups ->
+            groups.indices.map { Pair(legacyArguments(groups[it]), arguments(tab, it)) }
+        }
+        val legacy = measure(bundles.map { it.first }) { it.getSerializable("groupedAttributes") }
+        val reference = measure(bundles.map { it.second }) { it.getInt("group") }
+
+        report("arguments", legacy, reference)
+        // a handle and two ints, whatever the size of the group
+        assertEquals(size(arguments(0, 0)), size(arguments(2, GROUPS - 1)))
+        assertTrue("${reference.bytes} vs ${legacy.bytes}", reference.bytes * 10 < legacy.bytes)
+    }
+
+    @Test
+    fun activityState() {
+        val legacy = measure(listOf(legacyState())) { it.getSerializable("resultsFragment") }
+        val reference = measure(listOf(state())) { it.getInt("resultsIndex") }
+
+        report("state", legacy, reference)
+        assertTrue("${reference.bytes} vs ${legacy.bytes}", reference.bytes < legacy.bytes)
+    }
+
+    /**
+     * Writes every bundle of [bundles] to a Parcel and reads it back, [read] unparcels the
+     * values. Bytes are the average Parcel.dataSize() of a bundle, times are per bundle.
+     */
+    private fun measure(bundles: List<Bundle>, read: (Bundle) -> Any?): Measurement {
+        val marshallUs = mutableListOf<Double>()
+        val unmarshallUs = mutableListOf<Double>()
+        repeat(WARM_UP + rounds) { round ->
+            for (bundle in bundles) {
+                val parcel = Parcel.obtain()
+                try {
+                    // a copy, Bundle keeps a parcelled form it was read from
+                    val copy = Bundle(bundle)
+                    var start = SystemClock.elapsedRealtimeNanos()
+                    parcel.writeBundle(copy)
+                    val marshalled = parcel.marshall()
+                    val marshallNs = SystemClock.elapsedRealtimeNanos() - start
+
+                    val input = Parcel.obtain()
+                    try {
+                        start = SystemClock.elapsedRealtimeNanos()
+                        input.unmarshall(marshalled, 0, marshalled.size)
+                        input.setDataPosition(0)
+                        val restored = input.readBundle(javaClass.classLoader)!!
+                        read(restored)
+                        val unmarshallNs = SystemClock.elapsedRealtimeNanos() - start
+                        if (round >= WARM_UP) {
+                            marshallUs.add(marshallNs / 1e3)
+                            unmarshallUs.add(unmarshallNs / 1e3)
+                        }
+                    } finally {
+                        input.recycle()
+                    }
+                } finally {
+                    parcel.recycle()
+                }
+            }
+        }
+        return Measurement(bundles.sumOf { size(it) } / bundles.size, marshallUs, unmarshallUs)
+    }
+
+    private fun size(bundle: Bundle): Int {
+        val parcel = Parcel.obtain()
+        try {
+            parcel.writeBundle(Bundle(bundle))
+            return parcel.dataSize()
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    private fun report(name: String, legacy: Measurement, reference: Measurement) {
+        val report = Bundle()
+        for ((path, measurement) in listOf("serializable" to legacy, "reference" to reference)) {
+            report.putInt("${name}_${path}_bytes", measurement.bytes)
+            report.putDouble("${name}_${path}_marshall_p50_us", percentile(measurement.marshallUs, 50))
+            report.putDouble("${name}_${path}_marshall_p90_us", percentile(measurement.marshallUs, 90))
+            report.putDouble("${name}_${path}_unmarshall_p50_us", percentile(measurement.unmarshallUs, 50))
+            report.putDouble("${name}_${path}_unmarshall_p90_us", percentile(measurement.unmarshallUs, 90))
+        }
+        Log.i(TAG, report.toString())
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, report)
+    }
+
+    private fun percentile(values: List<Double>, percent: Int): Double {
+        val sorted = values.sorted()
+        return sorted[((sorted.size - 1) * percent / 100.0).toInt()]
+    }
+
+    companion object {
+        private const val TAG = "GroupArgumentsBenchmark"
+        private const val WARM_UP = 20
+        private const val GROUPS = 6
+        private const val ATTRIBUTES = 40
+        private const val HANDLE = 1_650_000_000_000L
+    }
+}
@@ -0,0 +1,80 @@
+package com.regula.documentreader
+
+import android.os.Bundle
+import android.os.Parcel
+import androidx.test.annotation.UiThreadTest
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.regula.documentreader.api.results.DocumentReaderResults
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * [GroupFragment] keeps only a reference into [ResultsModel] in its arguments, it must find its
+ * group again after they went through a Parcel, as they do when the process is killed.
+ */
+@RunWith(AndroidJUnit4::class)
+class GroupFragmentTest {
+    private fun groups(tab: String) = MutableList(3) { group ->
+        GroupedAttributes("$tab $group", mutableListOf(Attribute("Field", "Value $group")))
+    }
+
+    private val model = ResultsModel(
+        HANDLE, DocumentReaderResults(), groups("Results"), groups("Compare"), groups("RFID")
+    )
+
+    private fun restored(fragment: GroupFragment): GroupFragment {
+        val parcel = Parcel.obtain()
+        try {
+            fragment.requireArguments().writeToParcel(parcel, 0)
+            parcel.setDataPosition(0)
+            val arguments = Bundle.CREATOR.createFromParcel(parcel)
+            return GroupFragment().apply { this.arguments = arguments }
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    fun argumentsSurviveParceling() {
+        val fragment = restored(GroupFragment.newInstance(HANDLE, ResultsActivity.COMPARE, 2))
+
+        val arguments = fragment.requireArguments()
+        assertEquals(HANDLE, arguments.getLong(ResultsStore.EXTRA_HANDLE))
+        assertSame(model.compareGroupedAttributes[2], fragment.group(model))
+    }
+
+    @Test
+    @UiThreadTest
+    fun resolvesGroupOfEveryTab() {
+        for (tab in listOf(ResultsActivity.RESULTS, ResultsActivity.COMPARE, ResultsActivity.RFID))
+            for (group in model.groups(tab).indices) {
+                val fragment = restored(GroupFragment.newInstance(HANDLE, tab, group))
+                assertSame(model.groups(tab)[group], fragment.group(model))
+            }
+    }
+
+    @Test
+    @UiThreadTest
+    fun noGroupFromOtherResults() {
+        val fragment = restored(GroupFragment.newInstance(HANDLE + 1, ResultsActivity.RESULTS, 0))
+
+        assertNull(fragment.group(model))
+        assertNull(fragment.group(null))
+    }
+
+    @Test
+    @UiThreadTest
+    fun noGroupPastTheEnd() {
+        val fragment = restored(GroupFragment.newInstance(HANDLE, ResultsActivity.RFID, 3))
+
+        assertNull(fragment.group(model))
+    }
+
+    companion object {
+        private const val HANDLE = 1_650_000_000_000L
+    }
+}
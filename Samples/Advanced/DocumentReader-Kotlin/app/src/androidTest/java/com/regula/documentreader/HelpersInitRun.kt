@@ -0,0 +1,69 @@
+package com.regula.documentreader
+
+import android.os.Bundle
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import dalvik.system.DexClassLoader
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+
+/**
+ * Cold class initialization of Helpers now and of the constant tables it used to build, each
+ * round in a fresh class loader so nothing is initialized yet:
+ *
+ * adb shell am instrument -w -e class com.regula.documentreader.HelpersInitRun \
+ *     [-e rounds <n>] com.regula.documentreader.test/androidx.test.runner.AndroidJUnitRunner
+ *
+ * "helpers" is what MainActivity pays on its first use of Helpers. The old class init did the
+ * same plus "legacy_tables" ([LegacyHelperTables]), so before ≈ helpers + legacy_tables. The
+ * medians in ms are printed as instrumentation status. Classes loaded this way aren't compiled
+ * ahead of time, so compare the numbers with each other rather than with a startup trace.
+ */
+@RunWith(AndroidJUnit4::class)
+class HelpersInitRun {
+    @Test
+    fun measure() {
+        val instrumentation = InstrumentationRegistry.getInstrumentation()
+        val rounds = InstrumentationRegistry.getArguments().getString("rounds")?.toInt() ?: 20
+        val dexPath = listOf(
+            instrumentation.targetContext.applicationInfo.sourceDir,
+            instrumentation.context.applicationInfo.sourceDir
+        ).joinToString(File.pathSeparator)
+        val optimized = instrumentation.targetContext.codeCacheDir.path
+        // the framework only, the app's and the test's classes come from the fresh loader
+        val parent = String::class.java.classLoader
+
+        fun initMs(className: String): Double {
+            val loader = DexClassLoader(dexPath, optimized, null, parent)
+            val start = SystemClock.elapsedRealtimeNanos()
+            Class.forName(className, true, loader)
+            return (SystemClock.elapsedRealtimeNanos() - start) / 1e6
+        }
+
+        // the first loads also open and verify the dex files
+        repeat(WARM_UP) {
+            initMs(HELPERS)
+            initMs(LEGACY_TABLES)
+        }
+        val helpers = (1..rounds).map { initMs(HELPERS) }
+        val legacy = (1..rounds).map { initMs(LEGACY_TABLES) }
+
+        val report = Bundle()
+        report.putDouble("helpers_ms", median(helpers))
+        report.putDouble("legacy_tables_ms", median(legacy))
+        Log.i(TAG, report.toString())
+        instrumentation.sendStatus(0, report)
+    }
+
+    private fun median(values: List<Double>) = values.sorted()[values.size / 2]
+
+    companion object {
+        private const val TAG = "HelpersInitRun"
+        private const val WARM_UP = 3
+        private const val HELPERS = "com.regula.documentreader.Helpers"
+        private const val LEGACY_TABLES = "com.regula.documentreader.LegacyHelperTables"
+    }
+}
@@ -0,0 +1,33 @@
+package com.regula.documentreader
+
+import android.app.Application
+
+class App : Application() {
+    override fun onCreate() {
+        super.onCreate()
+        StartupMetrics.onProcessStart()
+        ResultsStore.init(this)
+        EncryptedOutbox.init(this)
+        ReaderBootstrap.start(this)
+    }
+
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        when {
+            // in the background, the process is among the next to be killed
+            level >= TRIM_MEMORY_BACKGROUND -> releaseMemory()
+            // not memory pressure: the results shown now must survive the process being killed
+            // in the background, but stay in memory for when the user comes back
+            level >= TRIM_MEMORY_UI_HIDDEN -> ResultsStore.spill(evict = false)
+            // still in the foreground, the system is low on memory
+            level >= TRIM_MEMORY_RUNNING_LOW -> releaseMemory()
+        }
+    }
+
+    private fun releaseMemory() {
+        BitmapPool.clear()
+        ResultCache.clearMemory()
+        ThumbnailCache.clear()
+        ResultsStore.spill(evict = true)
+    }
+}
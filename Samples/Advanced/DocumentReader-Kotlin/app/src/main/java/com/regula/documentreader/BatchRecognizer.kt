@@ -0,0 +1,221 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.net.Uri
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import com.regula.documentreader.api.DocumentReader.Instance
+import com.regula.documentreader.api.completions.IDocumentReaderCompletion
+import com.regula.documentreader.api.enums.DocReaderAction
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Recognizes several images in one go. Images are decoded in parallel on a bounded pool, while
+ * recognizeImage calls run strictly one at a time and in the order of [uris]. At most
+ * [queueDepth] decoded bitmaps wait for recognition at any moment, which bounds the memory used.
+ * Images found in [ResultCache] aren't decoded nor recognized again, unless [useCache] is off.
+ *
+ * [start] and [cancel] must be called on the main thread, the listener is called on the main
+ * thread as well.
+ *
+ * The SDK recognizes one image at a time. A cancelled batch may still have a recognizeImage call
+ * in flight, so recognizeImage is only called through [recognizeImage], which tracks that call
+ * until its completion arrives; [whenIdle] runs code once there's none.
+ */
+class BatchRecognizer(
+    context: Context,
+    private val uris: List<Uri>,
+    private val listener: Listener,
+    private val targetWidth: Int = 1920,
+    private val targetHeight: Int = 1080,
+    private val queueDepth: Int = DEFAULT_QUEUE_DEPTH,
+    decodeThreads: Int = DEFAULT_DECODE_THREADS,
+    private val useCache: Boolean = true
+) {
+    class Item(val index: Int, val uri: Uri) {
+        var results: DocumentReaderResults? = null
+        var key: String? = null
+        var cached = false
+        var error: String? = null
+        var decodeMs = 0.0
+        var recognizeMs = 0.0
+    }
+
+    interface Listener {
+        fun onItemCompleted(item: Item, completed: Int, total: Int)
+        fun onBatchCompleted(items: List<Item>)
+    }
+
+    private val context = context.applicationContext
+    private val scenario = Instance().processParams().scenario
+    private val handler = Handler(Looper.getMainLooper())
+    private val decodeExecutor: ExecutorService = Executors.newFixedThreadPool(decodeThreads)
+    val items = uris.mapIndexed { index, uri -> Item(index, uri) }
+
+    private val decoded = arrayOfNulls<Bitmap>(uris.size)
+    private val isDecoded = BooleanArray(uris.size)
+    private var submitted = 0
+    private var next = 0
+    val completed get() = next
+    val total get() = uris.size
+    private var cancelled = false
+    private var waitingForIdle = false
+    private var recognizeStartMs = 0L
+
+    fun start() {
+        submitDecodes()
+        if (uris.isEmpty())
+            finish()
+    }
+
+    fun cancel() {
+        cancelled = true
+        decodeExecutor.shutdownNow()
+        handler.removeCallbacksAndMessages(null)
+        for (i in decoded.indices) {
+            decoded[i]?.let { BitmapPool.put(it) }
+            decoded[i] = null
+        }
+    }
+
+    private fun submitDecodes() {
+        while (submitted < uris.size && submitted < next + queueDepth) {
+            val index = submitted++
+            decodeExecutor.execute {
+                val start = SystemClock.elapsedRealtime()
+                val encoded = BitmapDecoder.read(uris[index], context)
+                val key = if (useCache) encoded?.let { ResultCache.key(it, scenario) } else null
+                val cached = key?.let { ResultCache.get(context, it) }
+                val bitmap = if (encoded == null || cached != null) null else try {
+                    BitmapDecoder.decode(encoded, targetWidth, targetHeight)
+                } catch (e: OutOfMemoryError) {
+                    null
+                }
+                val decodeMs = (SystemClock.elapsedRealtime() - start).toDouble()
+                PerformanceMetrics.record(DECODE, decodeMs)
+                handler.post {
+                    if (cancelled) {
+                        bitmap?.let { BitmapPool.put(it) }
+                        return@post
+                    }
+                    items[index].decodeMs = decodeMs
+                    items[index].key = key
+                    items[index].cached = cached != null
+                    items[index].results = cached
+                    decoded[index] = bitmap
+                    isDecoded[index] = true
+                    recognizeNext()
+                }
+            }
+        }
+    }
+
+    private fun recognizeNext() {
+        if (cancelled || inFlight === this || next >= uris.size || !isDecoded[next])
+            return
+        val item = items[next]
+        val bitmap = decoded[next]
+        if (item.cached) {
+            onItemCompleted(item)
+            return
+        }
+        if (bitmap == null) {
+            item.error = "Unable to read the image"
+            onItemCompleted(item)
+            return
+        }
+        if (inFlight != null) {
+            // the call of a cancelled batch or a single image, the bitmap waits for its turn
+            if (!waitingForIdle) {
+                waitingForIdle = true
+                whenIdle {
+                    waitingForIdle = false
+                    recognizeNext()
+                }
+            }
+            return
+        }
+
+        decoded[next] = null
+        recognizeStartMs = SystemClock.elapsedRealtime()
+        recognizeImage(bitmap, this) { action, results, error ->
+            if (cancelled)
+                return@recognizeImage
+            when (action) {
+                DocReaderAction.COMPLETE -> {
+                    item.results = results
+                    if (results != null)
+                        item.key?.let { ResultCache.put(context, it, results) }
+                }
+                DocReaderAction.CANCEL -> item.error = "Cancelled"
+                DocReaderAction.ERROR -> item.error = error?.toString() ?: "Error"
+                else -> return@recognizeImage
+            }
+            item.recognizeMs = (SystemClock.elapsedRealtime() - recognizeStartMs).toDouble()
+            PerformanceMetrics.record(RECOGNIZE, item.recognizeMs)
+            onItemCompleted(item)
+        }
+    }
+
+    private fun onItemCompleted(item: Item) {
+        next++
+        listener.onItemCompleted(item, next, uris.size)
+        if (next == uris.size) {
+            finish()
+            return
+        }
+        submitDecodes()
+        recognizeNext()
+    }
+
+    private fun finish() {
+        decodeExecutor.shutdown()
+        listener.onBatchCompleted(items)
+    }
+
+    companion object {
+        const val DECODE = "batch.decode"
+        const val RECOGNIZE = "batch.recognize"
+        const val DEFAULT_QUEUE_DEPTH = 2
+        val DEFAULT_DECODE_THREADS = Runtime.getRuntime().availableProcessors().coerceIn(1, 3)
+
+        // who started the recognizeImage call in flight, it's only cleared by its completion
+        private var inFlight: Any? = null
+        private val idle = ArrayDeque<() -> Unit>()
+
+        /**
+         * Runs [block] on the main thread as soon as no recognizeImage call is in flight, right
+         * away if there's none. Must be called on the main thread.
+         */
+        fun whenIdle(block: () -> Unit) {
+            if (inFlight == null)
+                block()
+            else
+                idle.addLast(block)
+        }
+
+        /**
+         * Calls recognizeImage on behalf of [owner], nothing else may be recognized until the
+         * completion reports a final action. Must be called on the main thread when idle, see
+         * [whenIdle].
+         */
+        fun recognizeImage(bitmap: Bitmap, owner: Any, completion: IDocumentReaderCompletion) {
+            check(inFlight == null) { "recognizeImage is already in flight" }
+            inFlight = owner
+            Instance().recognizeImage(bitmap) { action, results, error ->
+                val final = action == DocReaderAction.COMPLETE ||
+                        action == DocReaderAction.CANCEL || action == DocReaderAction.ERROR
+                if (final)
+                    inFlight = null
+                completion.onCompleted(action, results, error)
+                // the completion may have started the next call already
+                while (final && inFlight == null && idle.isNotEmpty())
+                    idle.removeFirst()()
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.net.Uri
+import java.io.IOException
+import kotlin.math.ceil
+import kotlin.math.min
+import kotlin.math.roundToInt
+
+/**
+ * Decodes gallery images for recognizeImage. The content uri is opened and read exactly once,
+ * bounds and pixels are then decoded from the same in-memory copy of the encoded image, so slow
+ * (e.g. cloud backed) providers are only hit once.
+ *
+ * Images are scaled to fit exactly into the target size (which is turned to match the image
+ * orientation): a power of two inSampleSize does the coarse part while decoding, inDensity and
+ * inTargetDensity scale the rest of the way. The memory a decode may take is bounded by
+ * [maxDecodeBytes], the estimate is published to [PerformanceMetrics].
+ *
+ * Decoded bitmaps are mutable and reuse memory from [BitmapPool]. Only bitmaps that were never
+ * passed to recognizeImage may be handed back with [BitmapPool.put].
+ */
+object BitmapDecoder {
+    const val PEAK_BYTES = "decode.peak_bytes"
+    const val MAX_PEAK_BYTES = "decode.max_peak_bytes"
+    const val DECODED_PIXELS = "decode.pixels"
+
+    private const val BYTES_PER_PIXEL = 4
+    private const val MAX_SAMPLE_SIZE = 64
+
+    /**
+     * Upper bound for the encoded image, the subsampled bitmap and the scaled bitmap together.
+     * The subsampling is made coarser until the estimate fits.
+     */
+    var maxDecodeBytes = 48L * 1024 * 1024
+
+    private var maxPeakBytes = 0L
+
+    fun decode(uri: Uri, targetWidth: Int, targetHeight: Int, context: Context): Bitmap? {
+        val encoded = read(uri, context) ?: return null
+        return decode(encoded, targetWidth, targetHeight)
+    }
+
+    /**
+     * Reads the whole encoded image behind [uri], the stream is always closed.
+     */
+    fun read(uri: Uri, context: Context): ByteArray? = try {
+        context.contentResolver.openInputStream(uri)?.use { it.readBytes() }
+    } catch (e: IOException) {
+        e.printStackTrace()
+        null
+    }
+
+    fun decode(encoded: ByteArray, targetWidth: Int, targetHeight: Int): Bitmap? {
+        val options = BitmapFactory.Options()
+        options.inJustDecodeBounds = true
+        BitmapFactory.decodeByteArray(encoded, 0, encoded.size, options)
+        val width = options.outWidth
+        val height = options.outHeight
+        if (width <= 0 || height <= 0)
+            return null
+
+        // fit the long side of the image to the long side of the target
+        val portrait = height > width
+        val boxWidth = if (portrait == targetHeight > targetWidth) targetWidth else targetHeight
+        val boxHeight = if (boxWidth == targetWidth) targetHeight else targetWidth
+        val scale = min(1.0, min(boxWidth.toDouble() / width, boxHeight.toDouble() / height))
+        val outWidth = (width * scale).roundToInt().coerceAtLeast(1)
+        val outHeight = (height * scale).roundToInt().coerceAtLeast(1)
+
+        var sampleSize = 1
+        while (width / (sampleSize * 2) >= outWidth && height / (sampleSize * 2) >= outHeight)
+            sampleSize *= 2
+        var peakBytes = peakBytes(encoded.size, width, height, sampleSize, outWidth, outHeight)
+        while (peakBytes > maxDecodeBytes && sampleSize < MAX_SAMPLE_SIZE) {
+            sampleSize *= 2
+            peakBytes = peakBytes(encoded.size, width, height, sampleSize, outWidth, outHeight)
+        }
+        reportPeakBytes(peakBytes)
+        PerformanceMetrics.set(DECODED_PIXELS, outWidth.toLong() * outHeight)
+
+        options.inSampleSize = sampleSize
+        if (sampled(width, sampleSize) != outWidth) {
+            options.inScaled = true
+            options.inDensity = width
+            options.inTargetDensity = outWidth * sampleSize
+        }
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888
+        options.inJustDecodeBounds = false
+        options.inMutable = true
+        // one pixel of slack for the rounding of the scaled size
+        options.inBitmap = BitmapPool.get((outWidth + 1) * (outHeight + 1) * BYTES_PER_PIXEL)
+        return try {
+            BitmapFactory.decodeByteArray(encoded, 0, encoded.size, options)
+        } catch (e: IllegalArgumentException) {
+            // the pooled bitmap can't be reused for this image
+            options.inBitmap?.let { BitmapPool.put(it) }
+            options.inBitmap = null
+            BitmapFactory.decodeByteArray(encoded, 0, encoded.size, options)
+        }
+    }
+
+    private fun sampled(size: Int, sampleSize: Int) = ceil(size.toDouble() / sampleSize).toInt()
+
+    private fun peakBytes(
+        encodedBytes: Int,
+        width: Int,
+        height: Int,
+        sampleSize: Int,
+        outWidth: Int,
+        outHeight: Int
+    ): Long {
+        val sampledWidth = sampled(width, sampleSize)
+        val sampledHeight = sampled(height, sampleSize)
+        var bytes = encodedBytes + sampledWidth.toLong() * sampledHeight * BYTES_PER_PIXEL
+        if (sampledWidth != outWidth)
+            bytes += outWidth.toLong() * outHeight * BYTES_PER_PIXEL
+        return bytes
+    }
+
+    @Synchronized
+    private fun reportPeakBytes(bytes: Long) {
+        PerformanceMetrics.set(PEAK_BYTES, bytes)
+        if (bytes > maxPeakBytes) {
+            maxPeakBytes = bytes
+            PerformanceMetrics.set(MAX_PEAK_BYTES, bytes)
+        }
+    }
+}
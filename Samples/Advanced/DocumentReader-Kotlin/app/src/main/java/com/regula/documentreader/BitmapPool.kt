@@ -0,0 +1,97 @@
+package com.regula.documentreader
+
+import android.graphics.Bitmap
+import java.util.*
+
+/**
+ * Keeps decoded bitmaps that were never handed to recognizeImage, e.g. the read-ahead of a
+ * cancelled batch, so the next decode can reuse their memory through inBitmap instead of
+ * allocating another ~8 MB ARGB_8888 buffer. Bitmaps recognizeImage got aren't pooled: the SDK
+ * doesn't say it's done with them once the completion arrives, writing into them could change
+ * the results. Bitmaps are bucketed by
+ * allocation size, [get] returns the smallest one that fits. The pool never holds more than
+ * [maxBytes], the least recently returned bitmaps are dropped first.
+ *
+ * Hits and misses are published to [PerformanceMetrics] under [HITS] and [MISSES].
+ */
+object BitmapPool {
+    const val HITS = "bitmap_pool.hits"
+    const val MISSES = "bitmap_pool.misses"
+    const val POOLED_BYTES = "bitmap_pool.bytes"
+
+    /**
+     * A pooled bitmap is only reused if it's at most this many times bigger than needed.
+     */
+    private const val MAX_SIZE_MULTIPLIER = 2
+
+    var maxBytes = minOf(Runtime.getRuntime().maxMemory() / 8, 32L * 1024 * 1024)
+        @Synchronized set(value) {
+            field = value
+            trimTo(value)
+        }
+
+    var hits = 0L
+        private set
+    var misses = 0L
+        private set
+
+    private val buckets = TreeMap<Int, ArrayDeque<Bitmap>>()
+    private val lru = LinkedList<Bitmap>()
+    private var currentBytes = 0L
+
+    /**
+     * Returns a mutable ARGB_8888 bitmap of at least [bytes] bytes, or null on a miss.
+     */
+    @Synchronized
+    fun get(bytes: Int): Bitmap? {
+        val entry = buckets.ceilingEntry(bytes)
+        if (entry == null || entry.key / MAX_SIZE_MULTIPLIER > bytes) {
+            misses++
+            PerformanceMetrics.set(MISSES, misses)
+            return null
+        }
+        val bitmap = entry.value.removeFirst()
+        if (entry.value.isEmpty())
+            buckets.remove(entry.key)
+        lru.remove(bitmap)
+        currentBytes -= entry.key
+        hits++
+        PerformanceMetrics.set(HITS, hits)
+        PerformanceMetrics.set(POOLED_BYTES, currentBytes)
+        return bitmap
+    }
+
+    /**
+     * Hands [bitmap] over to the pool, the caller must not use it afterwards.
+     */
+    @Synchronized
+    fun put(bitmap: Bitmap) {
+        if (bitmap.isRecycled || !bitmap.isMutable || bitmap.config != Bitmap.Config.ARGB_8888)
+            return
+        val size = bitmap.allocationByteCount
+        if (size > maxBytes || lru.contains(bitmap))
+            return
+        trimTo(maxBytes - size)
+        buckets.getOrPut(size) { ArrayDeque() }.addLast(bitmap)
+        lru.addLast(bitmap)
+        currentBytes += size
+        PerformanceMetrics.set(POOLED_BYTES, currentBytes)
+    }
+
+    @Synchronized
+    fun clear() = trimTo(0)
+
+    private fun trimTo(bytes: Long) {
+        while (currentBytes > bytes && lru.isNotEmpty()) {
+            val bitmap = lru.removeFirst()
+            val size = bitmap.allocationByteCount
+            val bucket = buckets[size]
+            bucket?.remove(bitmap)
+            if (bucket != null && bucket.isEmpty())
+                buckets.remove(size)
+            currentBytes -= size
+            bitmap.recycle()
+        }
+        PerformanceMetrics.set(POOLED_BYTES, currentBytes)
+    }
+}
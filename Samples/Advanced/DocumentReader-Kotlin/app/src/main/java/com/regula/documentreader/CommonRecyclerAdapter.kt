@@ -1,6 +1,8 @@
 package com.regula.documentreader
 
 import android.content.Context
+import android.os.Looper
+import android.os.MessageQueue
 import android.text.InputType
 import android.text.InputType.TYPE_NUMBER_FLAG_SIGNED
 import android.view.LayoutInflater
@@ -9,6 +11,8 @@ import android.view.View.INVISIBLE
 import android.view.ViewGroup
 import android.widget.EditText
 import androidx.fragment.app.FragmentActivity
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.regula.documentreader.Helpers.Companion.grayedOutAlpha
@@ -24,21 +28,44 @@ import java.io.Serializable
 import java.util.*
 
 
-class CommonRecyclerAdapter(private val items: List<Base>) :
-    RecyclerView.Adapter<CommonRecyclerAdapter.VH>() {
-    override fun getItemViewType(position: Int): Int = when (items[position]) {
-        is Section -> SECTION
-        is Scan -> BUTTON
-        is Switch -> SWITCH
-        is Stepper -> STEPPER
-        is BS -> BOTTOM_SHEET
-        is BSMulti -> BOTTOM_SHEET_MULTI
-        is InputInt -> INPUT_INT
-        is InputString -> INPUT_STRING
-        is TextResult -> TEXT_RESULT
-        is Image -> IMAGE
-        is Status -> STATUS
-        else -> 0
+/**
+ * Rows are diffed with DiffUtil when a new list is submitted and have stable ids: every type,
+ * title and occurrence gets the next free id the first time the adapter sees it. Result groups
+ * share a [resultsViewPool] so their rows are rebound rather than inflated when switching groups.
+ */
+class CommonRecyclerAdapter(items: List<Base>) :
+    ListAdapter<Base, CommonRecyclerAdapter.VH>(DIFF) {
+    private var ids = LongArray(0)
+    // a row keeps its id in the lists submitted later
+    private val keyIds = HashMap<Triple<Int, String, Int>, Long>()
+
+    init {
+        setHasStableIds(true)
+        submitList(items)
+    }
+
+    override fun getItemViewType(position: Int) = viewType(getItem(position))
+
+    override fun getItemId(position: Int): Long {
+        // lists may still grow after they're submitted, see APISettingsFragment
+        if (ids.size != itemCount)
+            ids = stableIds(currentList)
+        return ids[position]
+    }
+
+    override fun onCurrentListChanged(previousList: List<Base>, currentList: List<Base>) {
+        ids = LongArray(0)
+    }
+
+    private fun stableIds(items: List<Base>): LongArray {
+        val occurrences = HashMap<Pair<Int, String>, Int>()
+        return LongArray(items.size) {
+            val type = viewType(items[it])
+            val title = items[it].title
+            val occurrence = occurrences[Pair(type, title)] ?: 0
+            occurrences[Pair(type, title)] = occurrence + 1
+            keyIds.getOrPut(Triple(type, title, occurrence)) { keyIds.size.toLong() }
+        }
     }
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): VH {
@@ -60,8 +87,7 @@ class CommonRecyclerAdapter(private val items: List<Base>) :
         }
     }
 
-    override fun getItemCount() = items.size
-    override fun onBindViewHolder(vh: VH, i: Int) = vh.bind(items[i])
+    override fun onBindViewHolder(vh: VH, i: Int) = vh.bind(getItem(i))
 
     sealed class VH(v: View) : RecyclerView.ViewHolder(v) {
         val context: Context = v.context
@@ -300,7 +326,7 @@ class CommonRecyclerAdapter(private val items: List<Base>) :
             override fun bind(base: Base) {
                 val image = base as Image
                 binding.title.text = image.title.uppercase(Locale.ROOT)
-                binding.image.setImageBitmap(image.value)
+                ThumbnailCache.load(binding.image, image.handle, image.graphic)
             }
         }
 
@@ -329,5 +355,70 @@ class CommonRecyclerAdapter(private val items: List<Base>) :
         private const val TEXT_RESULT = 7
         private const val IMAGE = 8
         private const val STATUS = 9
+
+        private val DIFF = object : DiffUtil.ItemCallback<Base>() {
+            override fun areItemsTheSame(oldItem: Base, newItem: Base) =
+                oldItem.javaClass == newItem.javaClass && oldItem.title == newItem.title
+
+            override fun areContentsTheSame(oldItem: Base, newItem: Base) = when {
+                oldItem is TextResult && newItem is TextResult -> oldItem.value == newItem.value &&
+                        oldItem.lcid == newItem.lcid && oldItem.color == newItem.color
+                oldItem is Image && newItem is Image ->
+                    oldItem.handle == newItem.handle && oldItem.graphic == newItem.graphic
+                oldItem is Status && newItem is Status -> oldItem.value == newItem.value
+                oldItem is Section && newItem is Section -> oldItem.helpTag == newItem.helpTag
+                // settings rows read their value when bound
+                else -> oldItem === newItem
+            }
+        }
+
+        private fun viewType(item: Base) = when (item) {
+            is Section -> SECTION
+            is Scan -> BUTTON
+            is Switch -> SWITCH
+            is Stepper -> STEPPER
+            is BS -> BOTTOM_SHEET
+            is BSMulti -> BOTTOM_SHEET_MULTI
+            is InputInt -> INPUT_INT
+            is InputString -> INPUT_STRING
+            is TextResult -> TEXT_RESULT
+            is Image -> IMAGE
+            is Status -> STATUS
+            else -> 0
+        }
+
+        /**
+         * A pool for the RecyclerViews of all result groups and tabs, sized for a screen of each
+         * row type.
+         */
+        fun resultsViewPool() = RecyclerView.RecycledViewPool().apply {
+            setMaxRecycledViews(SECTION, 4)
+            setMaxRecycledViews(TEXT_RESULT, 24)
+            setMaxRecycledViews(STATUS, 16)
+            setMaxRecycledViews(IMAGE, 6)
+        }
+
+        /**
+         * Inflates result rows into [pool] one at a time while the main thread is idle, so the
+         * first group shown binds pooled rows too. The returned handler holds on to [context],
+         * remove it from the main queue once [context] is destroyed.
+         */
+        fun prefetch(
+            context: Context,
+            pool: RecyclerView.RecycledViewPool
+        ): MessageQueue.IdleHandler {
+            val adapter = CommonRecyclerAdapter(emptyList())
+            val parent = RecyclerView(context)
+            val types = List(1) { SECTION } + List(12) { TEXT_RESULT } + List(6) { STATUS } +
+                    List(2) { IMAGE }
+            var next = 0
+            val handler = MessageQueue.IdleHandler {
+                val type = types[next++]
+                pool.putRecycledView(adapter.createViewHolder(parent, type))
+                next < types.size
+            }
+            Looper.myQueue().addIdleHandler(handler)
+            return handler
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.regula.documentreader
+
+/**
+ * Names of one set of SDK constants. Implementations are generated from src/main/tables by the
+ * generateLookupTables Gradle task, each one is initialized on its first use.
+ */
+interface ConstantTable {
+    /**
+     * All values in the order of the table.
+     */
+    val values: IntArray
+
+    /**
+     * The first name of [value], null if there is none.
+     */
+    fun name(value: Int): String?
+}
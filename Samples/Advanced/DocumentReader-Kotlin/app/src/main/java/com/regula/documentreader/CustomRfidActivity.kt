@@ -130,9 +130,10 @@ class CustomRfidActivity : AppCompatActivity() {
         DocumentReader.Instance().readRFID(isoDepTag) { rfidAction, results, error ->
             when (rfidAction) {
                 DocReaderAction.COMPLETE -> {
-                    MainActivity.results = results
+                    val data = Intent().putExtra(ResultsStore.EXTRA_HANDLE, ResultsStore.put(results))
+                    setResult(RESULT_CANCELED, data)
                     if (results.rfidResult == 0x00000001) {
-                        setResult(RESULT_OK)
+                        setResult(RESULT_OK, data)
                         binding.rfidStatus.text =
                             this.getString(R.string.RSDT_RFID_READING_FINISHED)
                         binding.rfidStatus.setTextColor(getColor(R.color.reg_green_ok))
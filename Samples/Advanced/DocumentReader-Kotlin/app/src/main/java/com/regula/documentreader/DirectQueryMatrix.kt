@@ -0,0 +1,136 @@
+package com.regula.documentreader
+
+import android.os.Handler
+import android.os.Looper
+import android.util.SparseIntArray
+import com.regula.documentreader.ParameterField.Companion.fieldType
+import com.regula.documentreader.ParameterField.Companion.fieldType_lcid
+import com.regula.documentreader.ParameterField.Companion.fieldType_lcid_sourceType
+import com.regula.documentreader.ParameterField.Companion.fieldType_lcid_sourceType_original
+import com.regula.documentreader.ParameterField.Companion.fieldType_original
+import com.regula.documentreader.ParameterField.Companion.fieldType_sourceType
+import com.regula.documentreader.ParameterField.Companion.fieldType_sourceType_original
+import com.regula.documentreader.ParameterField.Companion.lcid
+import com.regula.documentreader.ParameterField.Companion.sourceType
+import com.regula.documentreader.api.enums.LCID.LATIN
+import com.regula.documentreader.api.enums.eRPRM_ResultType.NONE
+import java.util.concurrent.Executors
+
+/**
+ * Answers of every [DirectResultsActivity] query for the field types, lcids and source types
+ * present in the results, evaluated once in the background when the screen opens so picker
+ * changes are array reads. Each parameter combination is a flat array indexed by the positions
+ * of its arguments among the present values.
+ *
+ * Arguments that aren't present (e.g. a field type missing from the results) aren't stored,
+ * [get] returns null for them and the caller falls back to [query].
+ */
+class DirectQueryMatrix private constructor(index: ResultsIndex) {
+    private class Dimension(values: Collection<Int>) {
+        val values = values.sorted().toIntArray()
+        private val positions = SparseIntArray(this.values.size)
+
+        init {
+            this.values.forEachIndexed { position, value -> positions.put(value, position) }
+        }
+
+        fun position(value: Int) = positions.get(value, -1)
+    }
+
+    private val fieldTypes = Dimension(index.fieldTypes)
+    private val lcids = Dimension(index.lcids)
+    private val sourceTypes = Dimension(index.sourceTypes + NONE)
+    private val originals = Dimension(listOf(0, 1))
+    private val answers = CONFIGURATIONS.map { parameters ->
+        val dimensions = parameters.map { dimension(it) }
+        val size = dimensions.fold(1) { acc, it -> acc * it.values.size }
+        val args = IntArray(parameters.size)
+        Array(size) { flat ->
+            var rest = flat
+            for (i in dimensions.indices.reversed()) {
+                val values = dimensions[i].values
+                args[i] = values[rest % values.size]
+                rest /= values.size
+            }
+            query(index, parameters, args.toList())
+        }
+    }
+
+    private fun dimension(parameter: Int) = when (parameter) {
+        fieldType -> fieldTypes
+        lcid -> lcids
+        sourceType -> sourceTypes
+        else -> originals
+    }
+
+    /**
+     * The stored answer, null if [parameters] isn't a known combination or an argument isn't
+     * present in the results.
+     */
+    fun get(parameters: Array<Int>, args: List<Int>): String? {
+        val configuration = CONFIGURATIONS.indexOfFirst { it contentEquals parameters }
+        if (configuration < 0)
+            return null
+        var flat = 0
+        for (i in parameters.indices) {
+            val dimension = dimension(parameters[i])
+            val position = dimension.position(args[i])
+            if (position < 0)
+                return null
+            flat = flat * dimension.values.size + position
+        }
+        return answers[configuration][flat]
+    }
+
+    companion object {
+        const val BUILD = "direct.matrix_build"
+
+        private val CONFIGURATIONS = listOf(
+            arrayOf(fieldType),
+            fieldType_lcid,
+            fieldType_lcid_sourceType,
+            fieldType_lcid_sourceType_original,
+            fieldType_sourceType,
+            fieldType_sourceType_original,
+            fieldType_original
+        )
+
+        private val executor = Executors.newSingleThreadExecutor()
+        private val handler = Handler(Looper.getMainLooper())
+
+        /**
+         * Builds the matrix of [index] in the background and passes it to [callback] on the main
+         * thread.
+         */
+        fun build(index: ResultsIndex, callback: (DirectQueryMatrix) -> Unit) {
+            executor.execute {
+                val matrix = PerformanceMetrics.measure(BUILD) { DirectQueryMatrix(index) }
+                handler.post { callback(matrix) }
+            }
+        }
+
+        /**
+         * Evaluates one query against [index], "n/a" if there is no value.
+         */
+        fun query(index: ResultsIndex, parameters: Array<Int>, args: List<Int>): String {
+            val output = when {
+                parameters contentEquals arrayOf(fieldType) ->
+                    index.field(args[0])?.value()?.value
+                parameters contentEquals fieldType_lcid ->
+                    index.field(args[0], args[1])?.value()?.value
+                parameters contentEquals fieldType_lcid_sourceType ->
+                    index.value(args[0], args[1], args[2])
+                parameters contentEquals fieldType_lcid_sourceType_original ->
+                    index.value(args[0], args[1], args[2], args[3] != 0)
+                parameters contentEquals fieldType_sourceType ->
+                    index.valueBySource(args[0], args[1])
+                parameters contentEquals fieldType_sourceType_original ->
+                    index.valueBySource(args[0], args[1], args[2] != 0)
+                parameters contentEquals fieldType_original ->
+                    index.value(args[0], LATIN, NONE, args[1] != 0)
+                else -> null
+            }
+            return output ?: "n/a"
+        }
+    }
+}
@@ -10,11 +10,9 @@ import androidx.fragment.app.Fragment
 import androidx.recyclerview.widget.DividerItemDecoration
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
-import com.regula.documentreader.Helpers.Companion.LCID
-import com.regula.documentreader.Helpers.Companion.ResultType
-import com.regula.documentreader.Helpers.Companion.VisualFieldType
 import com.regula.documentreader.Helpers.Companion.grayedOutAlpha
 import com.regula.documentreader.Helpers.Companion.keyByValue
+import com.regula.documentreader.Helpers.Companion.lookupTable
 import com.regula.documentreader.Helpers.Companion.openLink
 import com.regula.documentreader.ParameterField.Companion.fieldType
 import com.regula.documentreader.ParameterField.Companion.fieldType_lcid
@@ -26,9 +24,7 @@ import com.regula.documentreader.ParameterField.Companion.fieldType_sourceType_o
 import com.regula.documentreader.ParameterField.Companion.lcid
 import com.regula.documentreader.ParameterField.Companion.original
 import com.regula.documentreader.ParameterField.Companion.sourceType
-import com.regula.documentreader.ResultsActivity.Companion.results
-import com.regula.documentreader.api.enums.LCID.LATIN
-import com.regula.documentreader.api.enums.eRPRM_ResultType.NONE
+import com.regula.documentreader.api.results.DocumentReaderResults
 import com.regula.documentreader.databinding.ActivityDirectResultsBinding
 import com.regula.documentreader.databinding.FragmentRvAddParameterBinding
 import java.io.Serializable
@@ -40,6 +36,9 @@ class DirectResultsActivity : AppCompatActivity() {
     private lateinit var fragments: Map<Int, ParameterFieldFragment>
     private var parameters = arrayOf(fieldType)
     var selectedFieldIndex: Int = 0
+    private lateinit var results: DocumentReaderResults
+    private var handle = ResultsStore.NO_HANDLE
+    private var matrix: DirectQueryMatrix? = null
 
     companion object {
         var instance: DirectResultsActivity? = null
@@ -54,7 +53,33 @@ class DirectResultsActivity : AppCompatActivity() {
         binding.backBtn.setOnClickListener { finish() }
         binding.helpBtn.setOnClickListener { openLink(this, "Results") }
 
+        handle = intent.getLongExtra(ResultsStore.EXTRA_HANDLE, ResultsStore.NO_HANDLE)
+        ResultsStore.retain(handle)
+        // the model holds the results unless the process was killed meanwhile
+        val current = ResultsModel.current?.takeIf { it.handle == handle }?.results
+        if (current != null)
+            onResultsLoaded(current)
+        else {
+            binding.directSkeleton.visibility = View.VISIBLE
+            ResultsStore.load(handle) {
+                if (!isDestroyed)
+                    onResultsLoaded(it)
+            }
+        }
+    }
+
+    private fun onResultsLoaded(results: DocumentReaderResults?) {
+        binding.directSkeleton.visibility = View.GONE
+        if (results == null) {
+            finish()
+            return
+        }
+        this.results = results
         setupFields()
+        DirectQueryMatrix.build(ResultsIndex.of(results)) {
+            if (!isDestroyed)
+                matrix = it
+        }
         Helpers.replaceFragment(fragments[0] as Fragment, this, R.id.recyclerView)
 
         binding.resultsPicker.maxValue = fields.size - 1
@@ -67,21 +92,26 @@ class DirectResultsActivity : AppCompatActivity() {
         }
     }
 
+    override fun onDestroy() {
+        super.onDestroy()
+        ResultsStore.release(handle, isFinishing)
+    }
+
     private fun setupFields() {
+        val index = ResultsIndex.of(results)
         val fieldType = ParameterField("filedType", true, fieldType)
-        fieldType.presentedItems = results.textResult!!.fields.map { it.fieldType }.toSet().toList()
-        fieldType.items = VisualFieldType.values.toList()
+        fieldType.presentedItems = index.fieldTypes.toList()
+        fieldType.items = lookupTable(fieldType.parameter)!!.values
         sortFieldItems(fieldType)
 
         val lcid = ParameterField("lcid", false, lcid)
-        lcid.presentedItems = results.textResult!!.fields.map { it.lcid }.toSet().toList()
-        lcid.items = LCID.values.toList()
+        lcid.presentedItems = index.lcids.toList()
+        lcid.items = lookupTable(lcid.parameter)!!.values
         sortFieldItems(lcid)
 
         val source = ParameterField("source", false, sourceType)
-        val sources = results.textResult!!.fields.map { it.values }.flatten().map { it.sourceType }
-        source.presentedItems = sources.toSet().toList()
-        source.items = ResultType.values.toList()
+        source.presentedItems = index.sourceTypes.toList()
+        source.items = lookupTable(source.parameter)!!.values
         sortFieldItems(source)
 
         val original = ParameterField("original", false, original)
@@ -97,9 +127,11 @@ class DirectResultsActivity : AppCompatActivity() {
         )
     }
 
+    // once per screen, presented items first
     private fun sortFieldItems(filed: ParameterField) {
+        filed.presentedItems = filed.presentedItems.sorted()
         val notPresented = filed.items.toSet().subtract(filed.presentedItems)
-        filed.items = filed.presentedItems.sorted() + notPresented.sorted()
+        filed.items = filed.presentedItems + notPresented.sorted()
     }
 
     private fun indicesFromFields(): List<Int> {
@@ -131,19 +163,7 @@ class DirectResultsActivity : AppCompatActivity() {
         return arguments
     }
 
-    private fun argument(parameters: Int, intValue: Int): String {
-        when (parameters) {
-            fieldType ->
-                return keyByValue(VisualFieldType, intValue)
-            lcid ->
-                return keyByValue(LCID, intValue)
-            sourceType ->
-                return keyByValue(ResultType, intValue)
-            original ->
-                return if (intValue == 0) "false" else "true"
-        }
-        return "n/a"
-    }
+    private fun argument(parameters: Int, intValue: Int): String = keyByValue(parameters, intValue)
 
     private fun functionFormat(parameters: Array<Int>): String {
         var format = "Unknown configuration"
@@ -166,30 +186,6 @@ class DirectResultsActivity : AppCompatActivity() {
         return format
     }
 
-    private fun functionOutput(parameters: Array<Int>, args: List<Int>): String {
-        var output: String? = "n/a"
-        try {
-            when {
-                parameters contentEquals arrayOf(fieldType) -> output =
-                    results.getTextFieldByType(args[0]).value()!!.value!!
-                parameters contentEquals fieldType_lcid -> output =
-                    results.getTextFieldByType(args[0], args[1]).value()!!.value!!
-                parameters contentEquals fieldType_lcid_sourceType -> output =
-                    results.getTextFieldValueByType(args[0], args[1], args[2])
-                parameters contentEquals fieldType_lcid_sourceType_original -> output =
-                    results.getTextFieldValueByType(args[0], args[1], args[2], args[3] != 0)
-                parameters contentEquals fieldType_sourceType -> output =
-                    results.getTextFieldValueByTypeAndSource(args[0], args[1])
-                parameters contentEquals fieldType_sourceType_original ->
-                    results.getTextFieldValueByTypeAndSource(args[0], args[1], args[2] != 0)
-                parameters contentEquals fieldType_original -> output =
-                    results.getTextFieldValueByType(args[0], LATIN, NONE, args[1] != 0)
-            }
-        } catch (e: Exception) {
-        }
-        return output ?: "n/a"
-    }
-
     private fun stringWithFormat(str: String, args: List<String>): String {
         var result = str
         for (arg in args)
@@ -203,9 +199,12 @@ class DirectResultsActivity : AppCompatActivity() {
         val args = arguments(parameters.toList())
         val output = stringWithFormat(functionFormat(parameters), args)
 
-        if (output != "Unknown configuration") {
+        // fragments restored with the activity may ask before the results are loaded
+        if (output != "Unknown configuration" && ::results.isInitialized) {
             val argsInt = argumentsValues(parameters.toList())
-            val text = functionOutput(parameters, argsInt)
+            // queried directly until the matrix is ready
+            val text = matrix?.get(parameters, argsInt)
+                ?: DirectQueryMatrix.query(ResultsIndex.of(results), parameters, argsInt)
             binding.footerResult.text = text
         }
 
@@ -233,12 +232,14 @@ class ParameterFieldFragment : Fragment() {
         _binding = FragmentRvAddParameterBinding.inflate(inflater, vg, false)
         val sectionsData = mutableListOf<Direct>()
 
+        val presented = parameterField.presentedItems.toHashSet()
         for (item in parameterField.items)
             sectionsData.add(
                 Direct(
                     keyByValue(parameterField.parameter, item),
-                    parameterField.presentedItems.contains(item),
-                    parameterField.parameter
+                    presented.contains(item),
+                    parameterField.parameter,
+                    item
                 )
             )
 
@@ -0,0 +1,161 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.net.Uri
+import android.os.Build
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import com.regula.documentreader.api.DocumentReader.Instance
+import org.json.JSONArray
+import org.json.JSONObject
+import java.io.File
+import java.io.IOException
+import java.util.*
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs every image of [directory] through [BatchRecognizer] without any UI, e.g. to check
+ * recognition speed against a document corpus before moving to another SDK version.
+ * [ResultCache] is bypassed, so every image is recognized.
+ *
+ * One JSON record per image is written to [RESULTS_FILE] in [outputDirectory] as soon as the
+ * image is done, the throughput report goes to [REPORT_FILE] once all images are done.
+ */
+class DirectoryIngest(
+    context: Context,
+    private val directory: File,
+    private val outputDirectory: File,
+    private val queueDepth: Int = BatchRecognizer.DEFAULT_QUEUE_DEPTH,
+    private val targetWidth: Int = 1920,
+    private val targetHeight: Int = 1080,
+    private val imageTimeoutMs: Long = 5 * 60 * 1000L
+) {
+    class Report(val images: Int, val failed: Int, val wallMs: Double, capacity: Int) {
+        val decode = PerformanceMetrics.Timing(DECODE, capacity)
+        val recognize = PerformanceMetrics.Timing(RECOGNIZE, capacity)
+
+        val imagesPerSecond: Double
+            get() = if (wallMs == 0.0) 0.0 else images * 1000.0 / wallMs
+
+        fun toJson(): JSONObject = JSONObject()
+            .put("images", images)
+            .put("failed", failed)
+            .put("wallMs", wallMs)
+            .put("imagesPerSecond", imagesPerSecond)
+            .put(DECODE, decode.toJson())
+            .put(RECOGNIZE, recognize.toJson())
+            .put("device", JSONArray().put(Build.MANUFACTURER).put(Build.MODEL).put(Build.VERSION.SDK_INT))
+    }
+
+    private val context = context.applicationContext
+    private val handler = Handler(Looper.getMainLooper())
+    private var scenario: String? = null
+
+    /**
+     * Recognizes all images and returns the report. Blocks until the last image is done, so it
+     * must not be called on the main thread. The reader has to be initialized already, see
+     * [ReaderBootstrap.awaitReady].
+     */
+    fun run(): Report {
+        check(Looper.myLooper() != Looper.getMainLooper()) { "run() blocks, call it off the main thread" }
+        val files = directory.listFiles { file ->
+            file.isFile && file.extension.lowercase(Locale.ROOT) in EXTENSIONS
+        }?.sortedBy { it.name } ?: throw IOException("Unable to list $directory")
+        outputDirectory.mkdirs()
+
+        val done = LinkedBlockingQueue<BatchRecognizer.Item>()
+        val listener = object : BatchRecognizer.Listener {
+            override fun onItemCompleted(item: BatchRecognizer.Item, completed: Int, total: Int) {
+                done.add(item)
+            }
+
+            override fun onBatchCompleted(items: List<BatchRecognizer.Item>) {}
+        }
+
+        var recognizer: BatchRecognizer? = null
+        val startMs = SystemClock.elapsedRealtime()
+        handler.post {
+            scenario = Instance().processParams().scenario
+            recognizer = BatchRecognizer(
+                context,
+                files.map { Uri.fromFile(it) },
+                listener,
+                targetWidth,
+                targetHeight,
+                queueDepth,
+                useCache = false
+            ).also { it.start() }
+        }
+
+        val decodeMs = mutableListOf<Double>()
+        val recognizeMs = mutableListOf<Double>()
+        var failed = 0
+        try {
+            File(outputDirectory, RESULTS_FILE).bufferedWriter().use { writer ->
+                repeat(files.size) {
+                    val item = done.poll(imageTimeoutMs, TimeUnit.MILLISECONDS)
+                        ?: throw IOException("No image was done within $imageTimeoutMs ms")
+                    decodeMs.add(item.decodeMs)
+                    // failed images would skew the recognition latency
+                    if (item.results == null)
+                        failed++
+                    else
+                        recognizeMs.add(item.recognizeMs)
+                    writer.write(record(files[item.index], item).toString())
+                    writer.newLine()
+                    writer.flush()
+                }
+            }
+        } finally {
+            handler.post { recognizer?.cancel() }
+        }
+
+        val report = Report(
+            files.size,
+            failed,
+            (SystemClock.elapsedRealtime() - startMs).toDouble(),
+            files.size.coerceAtLeast(1)
+        )
+        decodeMs.forEach { report.decode.add(it) }
+        recognizeMs.forEach { report.recognize.add(it) }
+        File(outputDirectory, REPORT_FILE).writeText(report.toJson().toString(2))
+        return report
+    }
+
+    private fun record(file: File, item: BatchRecognizer.Item): JSONObject {
+        val record = JSONObject()
+            .put("file", file.name)
+            .put("index", item.index)
+            .put("decodeMs", item.decodeMs)
+            .put("recognizeMs", item.recognizeMs)
+        val results = item.results
+        if (results == null) {
+            record.put("error", item.error ?: "Not recognized")
+            return record
+        }
+        val fields = JSONArray()
+        results.textResult?.fields?.forEach {
+            fields.put(
+                JSONObject()
+                    .put("fieldType", it.fieldType)
+                    .put("lcid", it.lcid)
+                    .put("name", it.getFieldName(context))
+                    .put("value", it.value()?.value)
+            )
+        }
+        return record
+            .put("overallResult", results.overallResult)
+            .put("scenario", scenario)
+            .put("fields", fields)
+    }
+
+    companion object {
+        const val RESULTS_FILE = "results.jsonl"
+        const val REPORT_FILE = "report.json"
+        const val DECODE = "decode"
+        const val RECOGNIZE = "recognize"
+        private val EXTENSIONS = setOf("jpg", "jpeg", "png", "webp", "bmp")
+    }
+}
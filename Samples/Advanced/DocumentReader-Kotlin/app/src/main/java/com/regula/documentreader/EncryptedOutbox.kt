@@ -0,0 +1,111 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.net.NetworkRequest
+import android.os.Handler
+import android.os.Looper
+import com.github.kittinunf.fuel.core.FuelError
+import com.regula.documentreader.SettingsActivity.Companion.isRequestCompressionEnabled
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The app's [Outbox] of encrypted processing requests. A submission is the rawResult the
+ * request is built from, the result is the [ResultsStore] handle of the processed results.
+ * Listeners are called on the main thread, waiting submissions are retried as soon as a network
+ * becomes available.
+ *
+ * The results are written to disk before their handle is stored in the outbox, and the handle is
+ * retained in [ResultsStore] until a listener got it, so it survives the process being killed.
+ */
+object EncryptedOutbox {
+    const val ATTEMPTS = "outbox.attempts"
+    const val DELIVERED = "outbox.delivered"
+
+    private const val DIRECTORY = "outbox"
+    private const val CONCURRENCY = 2
+    // base64 images still compress well at a fast level, the link is the bottleneck
+    private const val REQUEST_COMPRESSION_LEVEL = 5
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val attempts = AtomicLong()
+    private val delivered = AtomicLong()
+    private lateinit var outbox: Outbox<Long>
+
+    private object Handles : Outbox.Codec<Long> {
+        override fun encode(result: Long) = result.toString()
+
+        // recovered after a restart, retained again until it's delivered
+        override fun decode(text: String) = text.toLong().also { ResultsStore.retain(it) }
+
+        override fun release(result: Long) = ResultsStore.release(result, false)
+    }
+
+    fun init(context: Context) {
+        outbox = Outbox(
+            File(context.filesDir, DIRECTORY),
+            Executor { handler.post(it) },
+            CONCURRENCY,
+            codec = Handles,
+            send = ::send
+        )
+        outbox.start()
+        val connectivity = context.getSystemService(ConnectivityManager::class.java)
+        val request = NetworkRequest.Builder()
+            .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+            .build()
+        connectivity.registerNetworkCallback(request, object : ConnectivityManager.NetworkCallback() {
+            override fun onAvailable(network: Network) = outbox.retryNow()
+        })
+    }
+
+    /**
+     * Queues the request for [rawResult], returns its id.
+     */
+    fun submit(rawResult: String) = outbox.submit(rawResult)
+
+    fun addListener(listener: Outbox.Listener<Long>) = outbox.addListener(listener)
+
+    fun removeListener(listener: Outbox.Listener<Long>) = outbox.removeListener(listener)
+
+    private fun send(rawResult: String): Long {
+        PerformanceMetrics.set(ATTEMPTS, attempts.incrementAndGet())
+        val body = StreamedBody(isRequestCompressionEnabled, REQUEST_COMPRESSION_LEVEL) {
+            EncryptedRequest.write(rawResult, it)
+        }
+        val results = try {
+            EncryptedService.send(body)
+        } catch (e: FuelError) {
+            if (isPermanent(e))
+                throw Outbox.Rejected("Encrypted processing failed", e)
+            throw e
+        }
+        PerformanceMetrics.set(DELIVERED, delivered.incrementAndGet())
+        val handle = ResultsStore.put(results)
+        ResultsStore.retain(handle)
+        try {
+            ResultsStore.persist(handle)
+        } catch (e: Exception) {
+            // a handle that doesn't survive the process is no use to the outbox, retried
+            ResultsStore.release(handle, true)
+            throw IOException("Unable to store the results", e)
+        }
+        return handle
+    }
+
+    /**
+     * Failures a retry can't fix: the body couldn't be built from the rawResult, the service
+     * refused the request or answered with something that isn't results.
+     */
+    private fun isPermanent(error: FuelError): Boolean {
+        if (generateSequence<Throwable>(error) { it.cause }.any { it is StreamedBody.ProducerFailure })
+            return true
+        val status = error.response.statusCode
+        return status in 200..299 || status in 400..499 && status != 408 && status != 429
+    }
+}
@@ -0,0 +1,94 @@
+package com.regula.documentreader
+
+import android.util.JsonReader
+import android.util.JsonToken
+import android.util.JsonWriter
+import java.io.IOException
+import java.io.OutputStream
+import java.io.StringReader
+import java.math.BigDecimal
+
+/**
+ * Body of the encrypted processing request: ContainerList.List of the rawResult plus the
+ * processParam. The list is copied token by token from a JsonReader to a JsonWriter, so neither
+ * a JSON DOM nor a second copy of the base64 images is held in memory, only the rawResult itself
+ * and the value being copied. The output is meant to be a [StreamedBody].
+ */
+object EncryptedRequest {
+    /**
+     * Writes {"processParam": {...}, "List": ContainerList.List} to [output].
+     */
+    fun write(rawResult: String, output: OutputStream) {
+        JsonReader(StringReader(rawResult)).use { reader ->
+            JsonWriter(output.bufferedWriter()).use { writer ->
+                writer.beginObject()
+                writer.name("processParam").beginObject()
+                    .name("alreadyCropped").value(true)
+                    .name("scenario").value("FullProcess")
+                    .endObject()
+                writer.name("List")
+                if (!copyContainerList(reader, writer))
+                    throw IOException("No ContainerList.List in rawResult")
+                writer.endObject()
+            }
+        }
+    }
+
+    private fun copyContainerList(reader: JsonReader, writer: JsonWriter): Boolean {
+        reader.beginObject()
+        while (reader.hasNext()) {
+            if (reader.nextName() != "ContainerList" || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue()
+                continue
+            }
+            reader.beginObject()
+            while (reader.hasNext()) {
+                if (reader.nextName() == "List") {
+                    copy(reader, writer)
+                    return true
+                }
+                reader.skipValue()
+            }
+            reader.endObject()
+        }
+        return false
+    }
+
+    private fun copy(reader: JsonReader, writer: JsonWriter) {
+        var depth = 0
+        do {
+            when (reader.peek()) {
+                JsonToken.BEGIN_ARRAY -> {
+                    reader.beginArray()
+                    writer.beginArray()
+                    depth++
+                }
+                JsonToken.END_ARRAY -> {
+                    reader.endArray()
+                    writer.endArray()
+                    depth--
+                }
+                JsonToken.BEGIN_OBJECT -> {
+                    reader.beginObject()
+                    writer.beginObject()
+                    depth++
+                }
+                JsonToken.END_OBJECT -> {
+                    reader.endObject()
+                    writer.endObject()
+                    depth--
+                }
+                JsonToken.NAME -> writer.name(reader.nextName())
+                JsonToken.STRING -> writer.value(reader.nextString())
+                // the literal is kept as is, e.g. large integers don't go through a double
+                JsonToken.NUMBER -> writer.value(BigDecimal(reader.nextString()))
+                JsonToken.BOOLEAN -> writer.value(reader.nextBoolean())
+                JsonToken.NULL -> {
+                    reader.nextNull()
+                    writer.nullValue()
+                }
+                else -> throw IOException("Unexpected ${reader.peek()}")
+            }
+        } while (depth > 0)
+    }
+}
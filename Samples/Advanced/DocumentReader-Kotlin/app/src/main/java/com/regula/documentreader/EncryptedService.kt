@@ -0,0 +1,61 @@
+package com.regula.documentreader
+
+import com.github.kittinunf.fuel.core.FuelManager
+import com.github.kittinunf.fuel.core.Request
+import com.github.kittinunf.fuel.core.ResponseDeserializable
+import com.regula.documentreader.MainActivity.Companion.ENCRYPTED_RESULT_SERVICE
+import com.regula.documentreader.api.parser.DocReaderResultsJsonParser
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.io.IOException
+import java.io.InputStream
+
+/**
+ * Posts to the encrypted result service through its own FuelManager. [send] blocks, it's called
+ * by [EncryptedOutbox] on its workers, which read the response from the connection's stream and
+ * parse it.
+ */
+object EncryptedService {
+    const val READ = "encrypted.response_read"
+    const val PARSE = "encrypted.response_parse"
+    const val RESPONSE_CHARS = "encrypted.response_chars"
+    const val ROUND_TRIP = "encrypted.round_trip"
+
+    private val manager = FuelManager()
+
+    private object ResultsDeserializer : ResponseDeserializable<DocumentReaderResults> {
+        override fun deserialize(inputStream: InputStream): DocumentReaderResults {
+            // DocReaderResultsJsonParser only takes a String, it's read straight from the
+            // connection instead of going through Fuel's byte array first
+            val raw = PerformanceMetrics.measure(READ) {
+                inputStream.bufferedReader().use { it.readText() }
+            }
+            PerformanceMetrics.set(RESPONSE_CHARS, raw.length.toLong())
+            val results = PerformanceMetrics.measure(PARSE) {
+                DocReaderResultsJsonParser.parseCoreResults(raw)["docReaderResults"]
+                        as DocumentReaderResults?
+            } ?: throw IOException("No docReaderResults in response")
+            if (results.rawResult == null)
+                results.rawResult = raw
+            ResultsIndex.of(results)
+            return results
+        }
+    }
+
+    /**
+     * The request posting [body], not started yet.
+     */
+    fun request(body: StreamedBody): Request {
+        val request = manager.post(ENCRYPTED_RESULT_SERVICE)
+            .header(mapOf("Content-Type" to "application/json; utf-8"))
+        return body.applyTo(request)
+    }
+
+    /**
+     * Posts [body] on the calling thread and returns the parsed results, throws the FuelError if
+     * the request or the parsing fails.
+     */
+    fun send(body: StreamedBody): DocumentReaderResults =
+        PerformanceMetrics.measure(ROUND_TRIP) {
+            request(body).responseObject(ResultsDeserializer).third.get()
+        }
+}
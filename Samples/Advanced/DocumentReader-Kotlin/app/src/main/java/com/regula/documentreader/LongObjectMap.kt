@@ -0,0 +1,99 @@
+package com.regula.documentreader
+
+/**
+ * Open addressing (linear probing) map from primitive long keys to objects, lookups don't box
+ * nor allocate. 0 can't be used as a key, it marks free slots.
+ */
+class LongObjectMap<V : Any>(expectedSize: Int = 16) {
+    private var keys: LongArray
+    private var values: Array<Any?>
+    private var mask: Int
+    var size = 0
+        private set
+
+    init {
+        val capacity = capacityFor(expectedSize)
+        keys = LongArray(capacity)
+        values = arrayOfNulls(capacity)
+        mask = capacity - 1
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    operator fun get(key: Long): V? {
+        var slot = slot(key)
+        while (true) {
+            val current = keys[slot]
+            if (current == key)
+                return values[slot] as V
+            if (current == 0L)
+                return null
+            slot = (slot + 1) and mask
+        }
+    }
+
+    operator fun contains(key: Long) = get(key) != null
+
+    operator fun set(key: Long, value: V) {
+        put(key, value, true)
+    }
+
+    /**
+     * Stores [value] unless [key] is already present, returns true if it was stored.
+     */
+    fun putIfAbsent(key: Long, value: V) = put(key, value, false)
+
+    private fun put(key: Long, value: V, replace: Boolean): Boolean {
+        require(key != 0L) { "0 is reserved" }
+        var slot = slot(key)
+        while (true) {
+            val current = keys[slot]
+            if (current == key) {
+                if (replace)
+                    values[slot] = value
+                return replace
+            }
+            if (current == 0L)
+                break
+            slot = (slot + 1) and mask
+        }
+        keys[slot] = key
+        values[slot] = value
+        if (++size * 2 > keys.size)
+            resize(keys.size * 2)
+        return true
+    }
+
+    private fun resize(capacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+        keys = LongArray(capacity)
+        values = arrayOfNulls(capacity)
+        mask = capacity - 1
+        for (i in oldKeys.indices) {
+            val key = oldKeys[i]
+            if (key == 0L)
+                continue
+            var slot = slot(key)
+            while (keys[slot] != 0L)
+                slot = (slot + 1) and mask
+            keys[slot] = key
+            values[slot] = oldValues[i]
+        }
+    }
+
+    private fun slot(key: Long): Int {
+        // murmur3 finalizer, packed keys differ mostly in their high bits
+        var h = key
+        h = h xor (h ushr 33)
+        h *= -0xae502812aa7333L
+        h = h xor (h ushr 33)
+        return h.toInt() and mask
+    }
+
+    private fun capacityFor(expectedSize: Int): Int {
+        var capacity = 4
+        while (capacity < expectedSize * 2)
+            capacity = capacity shl 1
+        return capacity
+    }
+}
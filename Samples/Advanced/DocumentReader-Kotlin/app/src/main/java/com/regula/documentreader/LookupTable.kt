@@ -0,0 +1,37 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.util.SparseArray
+import androidx.core.os.ConfigurationCompat
+import java.util.*
+
+/**
+ * A generated [ConstantTable] with its translated names. [translation] caches translated names
+ * for the current locale and starts over when it changes.
+ *
+ * Not thread safe, meant for the main thread.
+ */
+class LookupTable(
+    private val table: ConstantTable,
+    private val translate: (Context, Int) -> String
+) {
+    private val translations = SparseArray<String>()
+    private var locale: Locale? = null
+
+    val values: List<Int>
+        get() = table.values.toList()
+
+    fun name(value: Int): String = table.name(value) ?: "n/a"
+
+    fun translation(context: Context, value: Int): String {
+        val current = ConfigurationCompat.getLocales(context.resources.configuration)[0]
+        if (current != locale) {
+            translations.clear()
+            locale = current
+        }
+        translations[value]?.let { return it }
+        val translation = translate(context, value)
+        translations.put(value, translation)
+        return translation
+    }
+}
@@ -5,11 +5,16 @@ import android.app.Activity
 import android.content.Intent
 import android.content.pm.PackageManager
 import android.graphics.*
+import android.net.Uri
 import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
 import android.text.SpannableString
+import android.text.format.DateFormat
 import android.text.style.AbsoluteSizeSpan
 import android.text.style.ForegroundColorSpan
 import android.text.style.StyleSpan
+import android.util.Log
 import android.view.*
 import android.widget.*
 import androidx.appcompat.app.AlertDialog
@@ -19,16 +24,14 @@ import androidx.core.content.res.ResourcesCompat
 import androidx.fragment.app.FragmentActivity
 import androidx.recyclerview.widget.DividerItemDecoration
 import androidx.recyclerview.widget.LinearLayoutManager
-import com.github.kittinunf.fuel.httpPost
-import com.github.kittinunf.result.Result
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.google.android.material.snackbar.Snackbar
 import com.regula.documentreader.Helpers.Companion.PERMISSIONS_REQUEST_READ_EXTERNAL_STORAGE
 import com.regula.documentreader.Helpers.Companion.REQUEST_BROWSE_PICTURE
 import com.regula.documentreader.Helpers.Companion.RFID_RESULT
 import com.regula.documentreader.Helpers.Companion.colorString
 import com.regula.documentreader.Helpers.Companion.createImageBrowsingRequest
 import com.regula.documentreader.Helpers.Companion.drawable
-import com.regula.documentreader.Helpers.Companion.getBitmap
 import com.regula.documentreader.Scan.Companion.ACTION_TYPE_GALLERY
 import com.regula.documentreader.SettingsActivity.Companion.functionality
 import com.regula.documentreader.SettingsActivity.Companion.isRfidEnabled
@@ -36,18 +39,15 @@ import com.regula.documentreader.SettingsActivity.Companion.useCustomRfidActivit
 import com.regula.documentreader.SettingsActivity.Companion.isDataEncryptionEnabled
 import com.regula.documentreader.api.DocumentReader.Instance
 import com.regula.documentreader.api.completions.IDocumentReaderCompletion
-import com.regula.documentreader.api.completions.IDocumentReaderPrepareCompletion
 import com.regula.documentreader.api.enums.DocReaderAction
 import com.regula.documentreader.api.enums.FrameShapeType
 import com.regula.documentreader.api.enums.eRFID_Password_Type
 import com.regula.documentreader.api.enums.eVisualFieldType
-import com.regula.documentreader.api.errors.DocumentReaderException
-import com.regula.documentreader.api.parser.DocReaderResultsJsonParser
 import com.regula.documentreader.api.results.DocumentReaderResults
 import com.regula.documentreader.databinding.ActivityMainBinding
-import org.json.JSONObject
 import java.io.Serializable
 import java.util.*
+import java.util.concurrent.Executors
 
 class MainActivity : FragmentActivity(), Serializable {
     @Transient
@@ -59,12 +59,39 @@ class MainActivity : FragmentActivity(), Serializable {
     @Transient
     private var initDialog: AlertDialog? = null
 
+    @Transient
+    private var recognizedKey: String? = null
+
+    @Transient
+    private var batchRecognizer: BatchRecognizer? = null
+
+    @Transient
+    private var batchItems: List<BatchRecognizer.Item>? = null
+
+    @Transient
+    private var batchResultsPending = false
+
+    // optical results shown if CustomRfidActivity doesn't return its own
+    @Transient
+    private var rfidFallbackHandle = ResultsStore.NO_HANDLE
+
+    // handles of server processed results nobody opened yet, oldest first
+    @Transient
+    private var processedHandles = ArrayList<Long>()
+
+    @Transient
+    private var processedSnackbar: Snackbar? = null
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        rfidFallbackHandle = savedInstanceState?.getLong(RFID_FALLBACK_HANDLE) ?: ResultsStore.NO_HANDLE
+        savedInstanceState?.getLongArray(PROCESSED_HANDLES)?.let {
+            processedHandles = ArrayList(it.toList())
+        }
         binding = ActivityMainBinding.inflate(layoutInflater)
         setContentView(binding.root)
         Helpers.opaqueStatusBar(binding.root)
-        if (Instance().documentReaderIsReady)
+        if (ReaderBootstrap.state == ReaderBootstrap.READY)
             onInitComplete()
 
         binding.helpBtn.setOnClickListener(OnClickListenerSerializable {
@@ -86,50 +113,51 @@ class MainActivity : FragmentActivity(), Serializable {
         binding.recyclerView.addItemDecoration(DividerItemDecoration(this, 1))
     }
 
+    override fun onSaveInstanceState(outState: Bundle) {
+        super.onSaveInstanceState(outState)
+        outState.putLong(RFID_FALLBACK_HANDLE, rfidFallbackHandle)
+        outState.putLongArray(PROCESSED_HANDLES, processedHandles.toLongArray())
+    }
+
     override fun onResume() {
         super.onResume()
-        if (Instance().documentReaderIsReady)
+        EncryptedOutbox.addListener(outboxListener)
+        batchRecognizer?.let {
+            loadingDialog = showDialog("Processing images: ${it.completed}/${it.total}")
+        }
+        if (batchResultsPending) {
+            batchResultsPending = false
+            batchItems?.let { showBatchResults(it) }
+        }
+        if (processedHandles.isNotEmpty())
+            showProcessedNotice.run()
+        if (binding.scenarioPicker.visibility == View.VISIBLE)
             return
 
-        initDialog = showDialog("Initializing")
-
-        val licInput = resources.openRawResource(R.raw.regula)
-        val license = ByteArray(licInput.available())
-        licInput.read(license)
-        Instance().prepareDatabase(this, "Full", getPrepareCompletion(license))
-        licInput.close()
+        if (ReaderBootstrap.state != ReaderBootstrap.READY)
+            initDialog = showDialog("Initializing")
+        ReaderBootstrap.start(this)
+        ReaderBootstrap.addListener(bootstrapListener)
     }
 
-    private fun getPrepareCompletion(license: ByteArray) =
-        object : IDocumentReaderPrepareCompletion {
-            override fun onPrepareProgressChanged(progress: Int) {
-                initDialog!!.setTitle("Downloading database: $progress%")
-            }
+    @Transient
+    private val bootstrapListener = object : ReaderBootstrap.Listener {
+        override fun onPrepareProgressChanged(progress: Int) {
+            initDialog?.setTitle("Downloading database: $progress%")
+        }
 
-            override fun onPrepareCompleted(status: Boolean, error: DocumentReaderException?) {
-                Instance().initializeReader(this@MainActivity, license)
-                { success, error_initializeReader ->
-                    if (initDialog!!.isShowing)
-                        initDialog!!.dismiss()
-                    Instance().customization().edit().setShowHelpAnimation(false).apply()
-
-                    if (success)
-                        onInitComplete()
-                    else
-                        Toast.makeText(
-                            this@MainActivity,
-                            "Init failed:$error_initializeReader",
-                            Toast.LENGTH_LONG
-                        ).show()
-                }
-            }
+        override fun onReady(success: Boolean, error: Throwable?) {
+            hideInitDialog()
+            if (success)
+                onInitComplete()
+            else
+                Toast.makeText(this@MainActivity, "Init failed:$error", Toast.LENGTH_LONG).show()
         }
+    }
 
     private fun onInitComplete() {
         var currentScenario: String? = Instance().processParams().scenario
-        val scenarios: Array<String?> = arrayOfNulls(Instance().availableScenarios.size)
-        for ((i, scenario) in Instance().availableScenarios.withIndex())
-            scenarios[i] = scenario.name
+        val scenarios = ReaderBootstrap.availableScenarios().toTypedArray()
         if (currentScenario == null || currentScenario.isEmpty()) {
             currentScenario = scenarios[0]
             Instance().processParams().scenario = currentScenario
@@ -145,10 +173,17 @@ class MainActivity : FragmentActivity(), Serializable {
         }
 
         binding.recyclerView.visibility = View.VISIBLE
+        StartupMetrics.trackFirstRender(binding.root)
+        // the benchmark measures time to full display up to this point
+        reportFullyDrawn()
     }
 
     override fun onPause() {
         super.onPause()
+        ReaderBootstrap.removeListener(bootstrapListener)
+        EncryptedOutbox.removeListener(outboxListener)
+        mainHandler.removeCallbacks(showProcessedNotice)
+        hideInitDialog()
         hideDialog()
     }
 
@@ -161,6 +196,11 @@ class MainActivity : FragmentActivity(), Serializable {
         return dialog.show()
     }
 
+    private fun hideInitDialog() {
+        initDialog?.dismiss()
+        initDialog = null
+    }
+
     private fun hideDialog() {
         loadingDialog?.dismiss()
         loadingDialog = null
@@ -168,19 +208,22 @@ class MainActivity : FragmentActivity(), Serializable {
 
     @Transient
     private val completion = IDocumentReaderCompletion { action, results, error ->
+        when (action) {
+            DocReaderAction.COMPLETE, DocReaderAction.CANCEL, DocReaderAction.ERROR ->
+                onRecognitionFinished(action, results)
+        }
         if (action == DocReaderAction.COMPLETE) {
             hideDialog()
             if (isRfidEnabled && results != null && results.chipPage != 0) {
+                val index = ResultsIndex.of(results)
                 var accessKey: String?
-                accessKey = results.getTextFieldValueByType(eVisualFieldType.FT_MRZ_STRINGS)
+                accessKey = index.value(eVisualFieldType.FT_MRZ_STRINGS)
                 if (accessKey != null && accessKey.isNotEmpty()) {
-                    accessKey = results.getTextFieldValueByType(eVisualFieldType.FT_MRZ_STRINGS)
-                        .replace("^", "").replace("\n", "")
+                    accessKey = accessKey.replace("^", "").replace("\n", "")
                     Instance().rfidScenario().setMrz(accessKey)
                     Instance().rfidScenario().setPacePasswordType(eRFID_Password_Type.PPT_MRZ)
                 } else {
-                    accessKey =
-                        results.getTextFieldValueByType(eVisualFieldType.FT_CARD_ACCESS_NUMBER)
+                    accessKey = index.value(eVisualFieldType.FT_CARD_ACCESS_NUMBER)
                     if (accessKey != null && accessKey.isNotEmpty()) {
                         Instance().rfidScenario().setPassword(accessKey)
                         Instance().rfidScenario().setPacePasswordType(eRFID_Password_Type.PPT_CAN)
@@ -192,7 +235,7 @@ class MainActivity : FragmentActivity(), Serializable {
                             displayResults(results_RFIDReader)
                     }
                 else {
-                    MainActivity.results = results
+                    rfidFallbackHandle = ResultsStore.put(results)
                     val rfidIntent = Intent(this@MainActivity, CustomRfidActivity::class.java)
                     startActivityForResult(rfidIntent, RFID_RESULT)
                 }
@@ -205,51 +248,104 @@ class MainActivity : FragmentActivity(), Serializable {
                 Toast.makeText(this, "Error:$error", Toast.LENGTH_LONG).show()
     }
 
+    private fun onRecognitionFinished(action: Int, results: DocumentReaderResults?) {
+        recognizedKey?.let {
+            recognizedKey = null
+            if (action == DocReaderAction.COMPLETE && results != null)
+                ResultCache.put(this, it, results)
+        }
+    }
+
     private fun displayResults(documentReaderResults: DocumentReaderResults) {
-        ResultsActivity.results = documentReaderResults
+        ResultsIndex.of(documentReaderResults)
         if (isDataEncryptionEnabled) {
-            val input = JSONObject(ResultsActivity.results.rawResult)
-            val processParam = JSONObject()
-                .put("alreadyCropped", true)
-                .put("scenario", "FullProcess")
-            val output = JSONObject()
-                .put("List", input.getJSONObject("ContainerList").getJSONArray("List"))
-                .put("processParam", processParam)
-            postRequest(output.toString())
+            documentReaderResults.rawResult?.let { postRequest(it) }
         } else
-            startActivity(Intent(this, ResultsActivity::class.java))
+            showResults(ResultsStore.put(documentReaderResults))
     }
 
-    private fun postRequest(jsonInputString: String) {
-        loadingDialog = showDialog("Getting results from server")
-        ENCRYPTED_RESULT_SERVICE
-            .httpPost()
-            .header(mapOf("Content-Type" to "application/json; utf-8"))
-            .body(jsonInputString)
-            .responseString { _, _, result ->
-                hideDialog()
-                when (result) {
-                    is Result.Success -> {
-                        val map = DocReaderResultsJsonParser.parseCoreResults(result.component1())
-                        val results = map["docReaderResults"] as DocumentReaderResults
-                        ResultsActivity.results = results
-                        startActivity(Intent(this, ResultsActivity::class.java))
-                    }
-                    is Result.Failure -> {
-                        println(result.getException())
-                        runOnUiThread {
-                            MaterialAlertDialogBuilder(this, R.style.AlertDialogTheme)
-                                .setTitle("Something went wrong")
-                                .setMessage("Check your internet connection and try again")
-                                .setPositiveButton("Retry") { _, _ ->
-                                    postRequest(jsonInputString)
-                                }
-                                .setNegativeButton("Cancel", null)
-                                .show()
-                        }
-                    }
-                }
-            }
+    private fun showResults(handle: Long) {
+        ResultsModel.prepare(this, handle)
+        startActivity(
+            Intent(this, ResultsActivity::class.java).putExtra(ResultsStore.EXTRA_HANDLE, handle)
+        )
+    }
+
+    /**
+     * Queues the processing request for [rawResult] in [EncryptedOutbox]. Results the listener
+     * gets are only listed, a backlog drained when the connection is back must not bury the
+     * operator's current work under results screens; they're opened from [showProcessedNotice].
+     */
+    private fun postRequest(rawResult: String) {
+        EncryptedOutbox.submit(rawResult)
+        Toast.makeText(this, "Sent for processing", Toast.LENGTH_SHORT).show()
+    }
+
+    @Transient
+    private val outboxListener = object : Outbox.Listener<Long> {
+        override fun onDelivered(id: Long, result: Long) {
+            processedHandles.add(result)
+            // deliveries come in bursts, one notice for all of them
+            mainHandler.removeCallbacks(showProcessedNotice)
+            mainHandler.post(showProcessedNotice)
+        }
+
+        override fun onRejected(id: Long, error: Throwable) {
+            Log.w(TAG, "Encrypted processing $id rejected", error)
+            Toast.makeText(this@MainActivity, "Server processing failed", Toast.LENGTH_LONG).show()
+        }
+
+        override fun onRetryScheduled(id: Long, attempt: Int, delayMs: Long, error: Throwable) {
+            Log.w(TAG, "Encrypted processing $id failed, retrying in $delayMs ms", error)
+            if (attempt == 1)
+                Toast.makeText(
+                    this@MainActivity,
+                    "No connection, the results will be fetched in the background",
+                    Toast.LENGTH_LONG
+                ).show()
+        }
+    }
+
+    @Transient
+    private val showProcessedNotice = Runnable {
+        val count = processedHandles.size
+        if (count == 0) {
+            processedSnackbar?.dismiss()
+            return@Runnable
+        }
+        val text =
+            if (count == 1) "Processed results are ready" else "$count processed results are ready"
+        val snackbar = processedSnackbar?.takeIf { it.isShownOrQueued }
+            ?: Snackbar.make(binding.root, text, Snackbar.LENGTH_INDEFINITE)
+                .setAction("Show") { showProcessedResults() }
+                .also { processedSnackbar = it }
+        snackbar.setText(text)
+        snackbar.show()
+    }
+
+    private fun showProcessedResults() {
+        processedSnackbar = null
+        if (processedHandles.size == 1) {
+            showResults(processedHandles.removeAt(0))
+            return
+        }
+        val format = DateFormat.getTimeFormat(this)
+        val handles = processedHandles.toList()
+        // handles are time based, the time the results came in tells them apart
+        val titles = handles.mapIndexed { index, handle ->
+            "${index + 1}. Received at ${format.format(Date(handle))}"
+        }
+        BottomSheet.newInstance(
+            "Processed results",
+            ArrayList(titles.map { BSItem(it) }),
+            true,
+            "Close",
+            true
+        ) { bsItem ->
+            val handle = handles.getOrNull(titles.indexOf(bsItem.title)) ?: return@newInstance
+            processedHandles.remove(handle)
+            showResults(handle)
+        }.show(supportFragmentManager, "")
     }
 
     fun showScanner() = Instance().showScanner(this, completion)
@@ -270,16 +366,128 @@ class MainActivity : FragmentActivity(), Serializable {
     override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
         super.onActivityResult(requestCode, resultCode, data)
         when (requestCode) {
-            RFID_RESULT -> results?.let { displayResults(it) }
-            REQUEST_BROWSE_PICTURE -> if (resultCode == Activity.RESULT_OK) data!!.data?.let {
-                val selectedImage = it
-                val bmp = getBitmap(selectedImage, 1920, 1080, this)
-                loadingDialog = showDialog("Processing image")
-                bmp?.let { Instance().recognizeImage(bmp, completion) }
+            RFID_RESULT -> {
+                val handle = data?.getLongExtra(ResultsStore.EXTRA_HANDLE, rfidFallbackHandle)
+                    ?: rfidFallbackHandle
+                rfidFallbackHandle = ResultsStore.NO_HANDLE
+                // read back from disk if the process was killed during the RFID session
+                loadingDialog = showDialog("Loading results")
+                ResultsStore.load(handle) { results ->
+                    if (isDestroyed)
+                        return@load
+                    hideDialog()
+                    results?.let { displayResults(it) }
+                }
+            }
+            REQUEST_BROWSE_PICTURE -> if (resultCode == Activity.RESULT_OK) data?.let {
+                val clipData = it.clipData
+                if (clipData != null && clipData.itemCount > 1) {
+                    recognizeBatch((0 until clipData.itemCount).map { i -> clipData.getItemAt(i).uri })
+                    return
+                }
+                (it.data ?: clipData?.getItemAt(0)?.uri)?.let { selectedImage ->
+                    recognizeGalleryImage(selectedImage)
+                }
             }
         }
     }
 
+    /**
+     * Reads, hashes and looks up [uri] in [ResultCache] in the background, only a cache miss
+     * goes to the SDK.
+     */
+    private fun recognizeGalleryImage(uri: Uri) {
+        loadingDialog = showDialog("Processing image")
+        val scenario = Instance().processParams().scenario
+        val context = applicationContext
+        galleryExecutor.execute {
+            val encoded = BitmapDecoder.read(uri, context)
+            val key = encoded?.let { ResultCache.key(it, scenario) }
+            val cached = key?.let { ResultCache.get(context, it) }
+            val bmp = if (cached == null) encoded?.let { BitmapDecoder.decode(it, 1920, 1080) } else null
+            mainHandler.post {
+                if (isDestroyed) {
+                    // never reached the SDK, its memory can be reused
+                    bmp?.let { BitmapPool.put(it) }
+                    return@post
+                }
+                when {
+                    cached != null -> completion.onCompleted(DocReaderAction.COMPLETE, cached, null)
+                    bmp == null -> {
+                        hideDialog()
+                        Toast.makeText(this, "Unable to read the image", Toast.LENGTH_LONG).show()
+                    }
+                    // a cancelled batch may still be recognizing its last image
+                    else -> BatchRecognizer.whenIdle {
+                        if (isDestroyed) {
+                            BitmapPool.put(bmp)
+                            return@whenIdle
+                        }
+                        recognizedKey = key
+                        BatchRecognizer.recognizeImage(bmp, this, completion)
+                    }
+                }
+            }
+        }
+    }
+
+    private fun recognizeBatch(uris: List<Uri>) {
+        batchRecognizer?.cancel()
+        batchItems = null
+        loadingDialog = showDialog("Processing images: 0/${uris.size}")
+        batchRecognizer = BatchRecognizer(this, uris, batchListener).also { it.start() }
+    }
+
+    @Transient
+    private val batchListener = object : BatchRecognizer.Listener {
+        override fun onItemCompleted(item: BatchRecognizer.Item, completed: Int, total: Int) {
+            loadingDialog?.setTitle("Processing images: $completed/$total")
+        }
+
+        override fun onBatchCompleted(items: List<BatchRecognizer.Item>) {
+            hideDialog()
+            batchRecognizer = null
+            batchItems = items
+            if (supportFragmentManager.isStateSaved)
+                batchResultsPending = true
+            else
+                showBatchResults(items)
+        }
+    }
+
+    private fun showBatchResults(items: List<BatchRecognizer.Item>) {
+        val titles = items.map { batchItemTitle(it) }
+        BottomSheet.newInstance(
+            "Processed images",
+            ArrayList(titles.map { BSItem(it) }),
+            false,
+            "Close",
+            true
+        ) { bsItem ->
+            batchItems?.getOrNull(titles.indexOf(bsItem.title))?.results?.let { displayResults(it) }
+        }.show(supportFragmentManager, "")
+    }
+
+    private fun batchItemTitle(item: BatchRecognizer.Item): String {
+        val results = item.results
+        val name = results?.let {
+            ResultsIndex.of(it).value(eVisualFieldType.FT_SURNAME_AND_GIVEN_NAMES)
+        }
+        val status = when {
+            item.error != null -> item.error
+            results == null -> "Not recognized"
+            name.isNullOrEmpty() -> "Recognized"
+            else -> name
+        }
+        return "${item.index + 1}. $status"
+    }
+
+    override fun onDestroy() {
+        super.onDestroy()
+        batchRecognizer?.cancel()
+        batchRecognizer = null
+    }
+
     override fun onRequestPermissionsResult(
         requestCode: Int,
         permissions: Array<String>,
@@ -465,7 +673,12 @@ class MainActivity : FragmentActivity(), Serializable {
     }
 
     companion object {
-        var results: DocumentReaderResults? = null
+        private const val TAG = "MainActivity"
+        private const val RFID_FALLBACK_HANDLE = "rfidFallbackHandle"
+        private const val PROCESSED_HANDLES = "processedHandles"
         const val ENCRYPTED_RESULT_SERVICE = "https://api.regulaforensics.com/api/process"
+
+        private val galleryExecutor = Executors.newSingleThreadExecutor()
+        private val mainHandler = Handler(Looper.getMainLooper())
     }
 }
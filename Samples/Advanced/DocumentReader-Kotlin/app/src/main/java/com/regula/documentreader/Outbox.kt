@@ -0,0 +1,313 @@
+package com.regula.documentreader
+
+import java.io.File
+import java.io.IOException
+import java.util.*
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Submissions that must reach a server eventually. Every payload is written to [directory] as
+ * gzipped text before it's sent, so pending submissions survive the process being killed and
+ * are picked up again by [start].
+ *
+ * [send] runs on at most [concurrency] threads. A failed attempt is retried after an
+ * exponential backoff from [initialDelayMs] up to [maxDelayMs], of which a random half is
+ * jitter so clients that lost the connection together don't retry together. [send] throws
+ * [Rejected] for submissions that can never succeed, those are dropped without a retry.
+ *
+ * Listeners are called through [callbackExecutor]. A result is written next to its submission
+ * with [codec] before the submission is removed, and only deleted once a listener got it: results
+ * delivered while no listener is registered are passed to the next listener added, also after the
+ * process was killed. A result may therefore reach a listener twice, never zero times.
+ */
+class Outbox<T : Any>(
+    private val directory: File,
+    private val callbackExecutor: Executor,
+    private val concurrency: Int = 2,
+    private val initialDelayMs: Long = 2_000,
+    private val maxDelayMs: Long = 5 * 60_000,
+    private val random: Random = Random(),
+    private val codec: Codec<T>,
+    private val send: (String) -> T
+) {
+    class Rejected(message: String, cause: Throwable? = null) : IOException(message, cause)
+
+    /**
+     * How results are stored until a listener gets them.
+     */
+    interface Codec<T> {
+        fun encode(result: T): String
+
+        fun decode(text: String): T
+
+        /**
+         * [result] was handed to the listeners, the outbox no longer keeps it.
+         */
+        fun release(result: T) {}
+    }
+
+    interface Listener<T> {
+        fun onDelivered(id: Long, result: T)
+
+        fun onRejected(id: Long, error: Throwable) {}
+
+        /**
+         * Attempt number [attempt] of [id] failed with [error], the next one starts in [delayMs].
+         */
+        fun onRetryScheduled(id: Long, attempt: Int, delayMs: Long, error: Throwable) {}
+    }
+
+    private val executor = ScheduledThreadPoolExecutor(concurrency)
+    // submissions waiting for or in an attempt
+    private val scheduled = HashMap<Long, ScheduledFuture<*>>()
+    // failed attempts of the submissions waiting for a retry
+    private val attempts = HashMap<Long, Int>()
+    private val running = HashSet<Long>()
+    // a task only attempts its submission if it's the one scheduled last
+    private val generations = HashMap<Long, Int>()
+    private val listeners = CopyOnWriteArrayList<Listener<T>>()
+    private val undelivered = mutableListOf<Pair<Long, T>>()
+    private var lastId = 0L
+
+    val pending: Int
+        @Synchronized get() = scheduled.size
+
+    /**
+     * Delivers the results and schedules the submissions left in [directory], oldest first. The
+     * directory is listed in the background.
+     */
+    fun start() {
+        executor.execute { recover() }
+    }
+
+    private fun recover() {
+        val results = synchronized(this) {
+            val names = directory.list()?.toSet() ?: return
+            val ids = names.mapNotNull {
+                it.removeSuffix(SUFFIX).removeSuffix(RESULT_SUFFIX).toLongOrNull()
+            }.toSortedSet()
+            ids.filter { id ->
+                lastId = maxOf(lastId, id)
+                // a submission whose result was written is done, it's not sent again
+                val delivered = id.toString() + RESULT_SUFFIX in names
+                if (!delivered && !scheduled.containsKey(id))
+                    schedule(id, 0)
+                delivered
+            }
+        }
+        for (id in results) {
+            val result = try {
+                codec.decode(read(resultFile(id)))
+            } catch (e: Exception) {
+                resultFile(id).delete()
+                continue
+            }
+            deliver(id, result)
+        }
+    }
+
+    /**
+     * Stores [payload] and sends it in the background, returns the id listeners get it by.
+     */
+    @Synchronized
+    fun submit(payload: String): Long {
+        val id = maxOf(System.currentTimeMillis(), lastId + 1)
+        lastId = id
+        val generation = nextGeneration(id)
+        scheduled[id] = executor.schedule(Runnable {
+            try {
+                write(file(id), payload)
+            } catch (e: IOException) {
+                reject(id, e)
+                return@Runnable
+            }
+            attempt(id, generation)
+        }, 0, TimeUnit.MILLISECONDS)
+        return id
+    }
+
+    /**
+     * Starts the submissions waiting for a retry now, e.g. when the connection is back.
+     * Submissions that haven't failed yet or are being sent are left alone.
+     */
+    @Synchronized
+    fun retryNow() {
+        for (id in attempts.keys.toList()) {
+            if (id in running)
+                continue
+            // a task that has just started sees it's stale and returns
+            scheduled[id]?.cancel(false)
+            schedule(id, 0)
+        }
+    }
+
+    fun addListener(listener: Listener<T>) {
+        if (!listeners.contains(listener))
+            listeners.add(listener)
+        val replay = synchronized(undelivered) {
+            undelivered.toList().also { undelivered.clear() }
+        }
+        for ((id, result) in replay) {
+            listener.onDelivered(id, result)
+            acknowledge(id, result)
+        }
+    }
+
+    fun removeListener(listener: Listener<T>) {
+        listeners.remove(listener)
+    }
+
+    /**
+     * Stops sending, the submissions left are sent by the next [start].
+     */
+    fun shutdown() {
+        executor.shutdownNow()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+    }
+
+    private fun schedule(id: Long, delayMs: Long) {
+        val generation = nextGeneration(id)
+        scheduled[id] = executor.schedule(
+            Runnable { attempt(id, generation) },
+            delayMs,
+            TimeUnit.MILLISECONDS
+        )
+    }
+
+    private fun nextGeneration(id: Long): Int {
+        val generation = (generations[id] ?: 0) + 1
+        generations[id] = generation
+        return generation
+    }
+
+    private fun attempt(id: Long, generation: Int) {
+        synchronized(this) {
+            if (generations[id] != generation || !running.add(id))
+                return
+        }
+        val payload = try {
+            read(file(id))
+        } catch (e: IOException) {
+            // sending it again won't bring the file back
+            reject(id, e)
+            return
+        }
+        val result = try {
+            send(payload)
+        } catch (e: Rejected) {
+            reject(id, e)
+            return
+        } catch (e: Exception) {
+            retry(id, e)
+            return
+        }
+        val stored = try {
+            write(resultFile(id), codec.encode(result))
+            true
+        } catch (e: IOException) {
+            false
+        }
+        // without the result on disk the submission is kept, it's sent again after a restart
+        finish(id, deleteFile = stored)
+        deliver(id, result)
+    }
+
+    private fun deliver(id: Long, result: T) {
+        callbackExecutor.execute {
+            if (listeners.isEmpty()) {
+                synchronized(undelivered) { undelivered.add(Pair(id, result)) }
+                return@execute
+            }
+            for (listener in listeners)
+                listener.onDelivered(id, result)
+            acknowledge(id, result)
+        }
+    }
+
+    /**
+     * The listeners got the result of [id], its files go.
+     */
+    private fun acknowledge(id: Long, result: T) {
+        codec.release(result)
+        try {
+            executor.execute {
+                file(id).delete()
+                resultFile(id).delete()
+            }
+        } catch (e: RejectedExecutionException) {
+            // shut down, the next start() delivers it again
+        }
+    }
+
+    private fun reject(id: Long, error: Throwable) {
+        finish(id)
+        dispatch { it.onRejected(id, error) }
+    }
+
+    @Synchronized
+    private fun retry(id: Long, error: Throwable) {
+        running.remove(id)
+        if (executor.isShutdown)
+            return
+        val attempt = (attempts[id] ?: 0) + 1
+        attempts[id] = attempt
+        val delayMs = delay(attempt)
+        schedule(id, delayMs)
+        dispatch { it.onRetryScheduled(id, attempt, delayMs, error) }
+    }
+
+    /**
+     * Half of the exponential delay plus a random part of the other half.
+     */
+    private fun delay(attempt: Int): Long {
+        val cap = minOf(maxDelayMs, initialDelayMs shl minOf(attempt - 1, 30))
+        return cap / 2 + (random.nextDouble() * (cap - cap / 2)).toLong()
+    }
+
+    @Synchronized
+    private fun finish(id: Long, deleteFile: Boolean = true) {
+        scheduled.remove(id)
+        attempts.remove(id)
+        running.remove(id)
+        generations.remove(id)
+        if (deleteFile)
+            file(id).delete()
+    }
+
+    /**
+     * Calls [block] with every listener on [callbackExecutor].
+     */
+    private fun dispatch(block: (Listener<T>) -> Unit) {
+        callbackExecutor.execute {
+            for (listener in listeners)
+                block(listener)
+        }
+    }
+
+    private fun file(id: Long) = File(directory, id.toString() + SUFFIX)
+
+    private fun resultFile(id: Long) = File(directory, id.toString() + RESULT_SUFFIX)
+
+    private fun write(file: File, payload: String) {
+        directory.mkdirs()
+        val tmp = File(file.path + ".tmp")
+        GZIPOutputStream(tmp.outputStream()).bufferedWriter().use { it.write(payload) }
+        if (!tmp.renameTo(file))
+            throw IOException("Can't store ${file.name}")
+    }
+
+    private fun read(file: File) =
+        GZIPInputStream(file.inputStream()).bufferedReader().use { it.readText() }
+
+    companion object {
+        private const val SUFFIX = ".json.gz"
+        private const val RESULT_SUFFIX = ".result.gz"
+    }
+}
@@ -0,0 +1,162 @@
+package com.regula.documentreader
+
+import android.os.Build
+import android.os.SystemClock
+import android.os.Trace
+import org.json.JSONArray
+import org.json.JSONObject
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * In-app registry of wall-clock timings and plain values. Every timing is also emitted as a
+ * systrace section, so the same names show up in Perfetto captures.
+ */
+object PerformanceMetrics {
+    private const val MAX_SAMPLES = 1024
+
+    /**
+     * Keeps the last [capacity] samples for percentiles.
+     */
+    class Timing(val name: String, private val capacity: Int = MAX_SAMPLES) {
+        var count = 0
+            private set
+        var totalMs = 0.0
+            private set
+        var minMs = Double.MAX_VALUE
+            private set
+        var maxMs = 0.0
+            private set
+        var lastMs = 0.0
+            private set
+        private val samples = DoubleArray(capacity)
+
+        @Synchronized
+        fun add(ms: Double) {
+            samples[count % capacity] = ms
+            count++
+            totalMs += ms
+            lastMs = ms
+            if (ms < minMs) minMs = ms
+            if (ms > maxMs) maxMs = ms
+        }
+
+        val averageMs: Double
+            get() = if (count == 0) 0.0 else totalMs / count
+
+        /**
+         * Nearest-rank percentile over the last [capacity] samples, [p] in 0..100.
+         */
+        @Synchronized
+        fun percentile(p: Double): Double {
+            val size = minOf(count, capacity)
+            if (size == 0) return 0.0
+            val sorted = samples.copyOf(size)
+            sorted.sort()
+            val rank = Math.ceil(p / 100.0 * size).toInt().coerceIn(1, size)
+            return sorted[rank - 1]
+        }
+
+        @Synchronized
+        fun toJson(): JSONObject = JSONObject()
+            .put("count", count)
+            .put("lastMs", lastMs)
+            .put("avgMs", averageMs)
+            .put("minMs", if (count == 0) 0.0 else minMs)
+            .put("maxMs", maxMs)
+            .put("p50Ms", percentile(50.0))
+            .put("p95Ms", percentile(95.0))
+            .put("p99Ms", percentile(99.0))
+    }
+
+    /**
+     * A timing that can start and end on different threads.
+     */
+    class Span internal constructor(val name: String, private val cookie: Int) {
+        private val startNs = SystemClock.elapsedRealtimeNanos()
+
+        @Volatile
+        private var ended = false
+
+        fun end(): Double {
+            if (ended) return 0.0
+            ended = true
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+                Trace.endAsyncSection(name, cookie)
+            val ms = (SystemClock.elapsedRealtimeNanos() - startNs) / 1_000_000.0
+            record(name, ms)
+            return ms
+        }
+    }
+
+    private val timings = ConcurrentHashMap<String, Timing>()
+    private val values = ConcurrentHashMap<String, Long>()
+    private val cookies = AtomicInteger()
+
+    fun record(name: String, ms: Double) {
+        timings.getOrPut(name) { Timing(name) }.add(ms)
+    }
+
+    fun set(name: String, value: Long) {
+        values[name] = value
+    }
+
+    fun begin(name: String): Span {
+        val cookie = cookies.incrementAndGet()
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+            Trace.beginAsyncSection(name, cookie)
+        return Span(name, cookie)
+    }
+
+    inline fun <T> measure(name: String, block: () -> T): T {
+        Trace.beginSection(name)
+        val start = SystemClock.elapsedRealtimeNanos()
+        try {
+            return block()
+        } finally {
+            record(name, (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000.0)
+            Trace.endSection()
+        }
+    }
+
+    fun timing(name: String): Timing? = timings[name]
+
+    fun value(name: String): Long? = values[name]
+
+    /**
+     * All timings whose name starts with [prefix], sorted by name.
+     */
+    fun timings(prefix: String = ""): List<Timing> =
+        timings.values.filter { it.name.startsWith(prefix) }.sortedBy { it.name }
+
+    fun toJson(prefix: String = ""): JSONObject {
+        val json = JSONObject()
+        val timingsJson = JSONObject()
+        for (timing in timings(prefix))
+            timingsJson.put(timing.name, timing.toJson())
+        json.put("timings", timingsJson)
+        val valuesJson = JSONObject()
+        for ((name, value) in values.toSortedMap())
+            if (name.startsWith(prefix))
+                valuesJson.put(name, value)
+        json.put("values", valuesJson)
+        json.put("device", JSONArray().put(Build.MANUFACTURER).put(Build.MODEL).put(Build.VERSION.SDK_INT))
+        return json
+    }
+
+    fun toText(prefix: String = ""): String {
+        val text = StringBuilder()
+        text.append("${Build.MANUFACTURER} ${Build.MODEL}, API ${Build.VERSION.SDK_INT}\n")
+        for (timing in timings(prefix))
+            text.append(
+                String.format(
+                    "%-40s n=%-4d last=%8.1fms avg=%8.1fms max=%8.1fms\n",
+                    timing.name, timing.count, timing.lastMs, timing.averageMs, timing.maxMs
+                )
+            )
+        for ((name, value) in values.toSortedMap())
+            if (name.startsWith(prefix))
+                text.append(String.format("%-40s %d\n", name, value))
+        return text.toString()
+    }
+}
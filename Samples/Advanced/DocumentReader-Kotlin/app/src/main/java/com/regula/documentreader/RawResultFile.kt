@@ -0,0 +1,75 @@
+package com.regula.documentreader
+
+import android.util.Log
+import com.regula.documentreader.api.parser.DocReaderResultsJsonParser
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.io.File
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * The on-disk form of [DocumentReaderResults] used by [ResultCache] and [ResultsStore]: the
+ * gzipped rawResult, parsed back with DocReaderResultsJsonParser.
+ */
+object RawResultFile {
+    private const val TAG = "RawResultFile"
+
+    /**
+     * Writes [raw] to a temporary file first, so [file] is either complete or missing.
+     */
+    fun write(file: File, raw: String) {
+        file.parentFile?.mkdirs()
+        val tmp = File(file.path + ".tmp")
+        GZIPOutputStream(tmp.outputStream()).bufferedWriter().use { it.write(raw) }
+        tmp.renameTo(file)
+    }
+
+    /**
+     * Returns null if [file] doesn't exist or can't be parsed, an unreadable file is deleted.
+     */
+    fun read(file: File): DocumentReaderResults? {
+        if (!file.exists())
+            return null
+        return try {
+            val raw = GZIPInputStream(file.inputStream()).bufferedReader().use { it.readText() }
+            val results = DocReaderResultsJsonParser.parseCoreResults(raw)["docReaderResults"]
+                    as DocumentReaderResults?
+            if (results != null && results.rawResult == null)
+                results.rawResult = raw
+            results
+        } catch (e: Exception) {
+            Log.w(TAG, "Dropping unreadable ${file.name}", e)
+            file.delete()
+            null
+        }
+    }
+
+    /**
+     * Deletes the least recently modified files of [directory] ending with [suffix] until at
+     * most [maxFiles] files and [maxBytes] bytes are left, files to [keep] aren't deleted but
+     * count. Returns the deleted files.
+     */
+    fun trim(
+        directory: File,
+        suffix: String,
+        maxFiles: Int = Int.MAX_VALUE,
+        maxBytes: Long = Long.MAX_VALUE,
+        keep: (File) -> Boolean = { false }
+    ): List<File> {
+        val files = directory.listFiles { _, name -> name.endsWith(suffix) } ?: return listOf()
+        var count = files.size
+        var bytes = files.sumOf { it.length() }
+        val deleted = mutableListOf<File>()
+        for (file in files.sortedBy { it.lastModified() }) {
+            if (count <= maxFiles && bytes <= maxBytes)
+                break
+            if (keep(file))
+                continue
+            count--
+            bytes -= file.length()
+            if (file.delete())
+                deleted.add(file)
+        }
+        return deleted
+    }
+}
@@ -0,0 +1,162 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import com.regula.documentreader.api.DocumentReader.Instance
+import com.regula.documentreader.api.completions.IDocumentReaderPrepareCompletion
+import com.regula.documentreader.api.errors.DocumentReaderException
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+/**
+ * Brings the reader up once per process. It is started from [App.onCreate]: the license is read
+ * on a background thread while the database is being prepared, and initializeReader is called as
+ * soon as both are done. Activities subscribe with [addListener], background code can block on
+ * [awaitReady].
+ *
+ * [start], [addListener] and [removeListener] must be called on the main thread, listeners are
+ * called on the main thread as well.
+ */
+object ReaderBootstrap {
+    const val IDLE = 0
+    const val PREPARING = 1
+    const val READY = 2
+    const val FAILED = 3
+
+    /**
+     * Scenarios reported by the benchmark build, where the reader is never initialized.
+     */
+    val STUB_SCENARIOS = listOf("Mrz", "Ocr", "FullProcess")
+
+    interface Listener {
+        fun onPrepareProgressChanged(progress: Int) {}
+        fun onReady(success: Boolean, error: Throwable?)
+    }
+
+    @Volatile
+    var state = IDLE
+        private set
+    @Volatile
+    var error: Throwable? = null
+        private set
+
+    private val executor = Executors.newFixedThreadPool(2)
+    private val handler = Handler(Looper.getMainLooper())
+    private val listeners = mutableListOf<Listener>()
+
+    @Volatile
+    private var readyLatch = CountDownLatch(1)
+
+    fun start(context: Context) {
+        if (state == PREPARING || state == READY)
+            return
+        if (BuildConfig.STUB_READER || Instance().documentReaderIsReady) {
+            finish(true, null)
+            return
+        }
+        val appContext = context.applicationContext
+        state = PREPARING
+        error = null
+        if (readyLatch.count == 0L)
+            readyLatch = CountDownLatch(1)
+
+        val license = executor.submit(Callable {
+            PerformanceMetrics.measure(StartupMetrics.LICENSE_READ) { readLicense(appContext) }
+        })
+        Instance().prepareDatabase(appContext, "Full", getPrepareCompletion(appContext, license))
+    }
+
+    private fun getPrepareCompletion(context: Context, license: Future<ByteArray>) =
+        object : IDocumentReaderPrepareCompletion {
+            private val prepareStartMs = SystemClock.elapsedRealtime()
+            private var downloading = false
+
+            override fun onPrepareProgressChanged(progress: Int) {
+                downloading = true
+                for (listener in listeners.toList())
+                    listener.onPrepareProgressChanged(progress)
+            }
+
+            override fun onPrepareCompleted(status: Boolean, error: DocumentReaderException?) {
+                PerformanceMetrics.record(
+                    if (downloading) StartupMetrics.DATABASE_PREPARE_DOWNLOAD
+                    else StartupMetrics.DATABASE_PREPARE_PRESENT,
+                    (SystemClock.elapsedRealtime() - prepareStartMs).toDouble()
+                )
+                // the license is normally read long before the database is ready,
+                // but don't block the main thread on it if it isn't
+                executor.execute {
+                    try {
+                        val bytes = license.get()
+                        handler.post { initializeReader(context, bytes) }
+                    } catch (e: ExecutionException) {
+                        handler.post { finish(false, e.cause) }
+                    } catch (e: InterruptedException) {
+                        Thread.currentThread().interrupt()
+                        // waiters on readyLatch must not hang on an attempt that can't finish
+                        handler.post { finish(false, e) }
+                    }
+                }
+            }
+        }
+
+    private fun initializeReader(context: Context, license: ByteArray) {
+        val span = PerformanceMetrics.begin(StartupMetrics.READER_INITIALIZE)
+        Instance().initializeReader(context, license) { success, error ->
+            span.end()
+            Instance().customization().edit().setShowHelpAnimation(false).apply()
+            finish(success, error)
+        }
+    }
+
+    private fun readLicense(context: Context): ByteArray =
+        context.resources.openRawResource(R.raw.regula).use { it.readBytes() }
+
+    private fun finish(success: Boolean, error: Throwable?) {
+        // error first, whoever sees the final state sees its error too
+        this.error = error
+        state = if (success) READY else FAILED
+        readyLatch.countDown()
+        for (listener in listeners.toList())
+            listener.onReady(success, error)
+    }
+
+    fun availableScenarios(): List<String> =
+        if (BuildConfig.STUB_READER) STUB_SCENARIOS
+        else Instance().availableScenarios.map { it.name }
+
+    /**
+     * Registers [listener]. If the bootstrap has already finished, [Listener.onReady] is called
+     * right away.
+     */
+    fun addListener(listener: Listener) {
+        if (!listeners.contains(listener))
+            listeners.add(listener)
+        if (state == READY || state == FAILED)
+            listener.onReady(state == READY, error)
+    }
+
+    fun removeListener(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    /**
+     * Blocks until the current attempt finishes. Returns true if the reader is ready, false if
+     * the attempt failed, see [error]. Must not be called on the main thread. Throws
+     * TimeoutException if the attempt is still running after [timeout] and InterruptedException
+     * if the waiting thread is interrupted, like the Java sample.
+     */
+    @Throws(InterruptedException::class, TimeoutException::class)
+    fun awaitReady(timeout: Long, unit: TimeUnit): Boolean {
+        if (!readyLatch.await(timeout, unit))
+            throw TimeoutException("Reader not ready after $timeout $unit")
+        return state == READY
+    }
+}
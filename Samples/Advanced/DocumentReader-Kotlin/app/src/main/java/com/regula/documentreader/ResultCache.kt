@@ -0,0 +1,86 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.util.Log
+import android.util.LruCache
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Remembers recognizeImage results so the same image recognized again with the same scenario
+ * doesn't go through the SDK. Entries are keyed by [key], a SHA-256 of the encoded image and the
+ * scenario. Recent results are kept in memory, all of them are also stored as gzipped rawResult
+ * in cacheDir/results and parsed back on a memory miss. The least recently used files are
+ * deleted once the directory grows over [maxDiskBytes].
+ *
+ * [get] may read from disk, don't call it on the main thread for large batches.
+ */
+object ResultCache {
+    const val MEMORY_HITS = "result_cache.memory_hits"
+    const val DISK_HITS = "result_cache.disk_hits"
+    const val MISSES = "result_cache.misses"
+    const val DISK_READ = "result_cache.disk_read"
+
+    private const val TAG = "ResultCache"
+    private const val DIRECTORY = "results"
+    private const val SUFFIX = ".json.gz"
+
+    var maxDiskBytes = 32L * 1024 * 1024
+
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val misses = AtomicLong()
+
+    // rawResult is the bulk of an entry, sized in chars
+    private val memory = object : LruCache<String, DocumentReaderResults>(4 * 1024 * 1024) {
+        override fun sizeOf(key: String, value: DocumentReaderResults) =
+            value.rawResult?.length ?: 1024
+    }
+    private val diskExecutor = Executors.newSingleThreadExecutor()
+
+    fun key(encoded: ByteArray, scenario: String?): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(encoded)
+        digest.update((scenario ?: "").toByteArray())
+        return digest.digest().joinToString("") { "%02x".format(it) }
+    }
+
+    fun get(context: Context, key: String): DocumentReaderResults? {
+        memory.get(key)?.let {
+            PerformanceMetrics.set(MEMORY_HITS, memoryHits.incrementAndGet())
+            return it
+        }
+        val file = File(directory(context), key + SUFFIX)
+        val results = if (file.exists()) PerformanceMetrics.measure(DISK_READ) { RawResultFile.read(file) } else null
+        if (results == null) {
+            PerformanceMetrics.set(MISSES, misses.incrementAndGet())
+            return null
+        }
+        file.setLastModified(System.currentTimeMillis())
+        memory.put(key, results)
+        PerformanceMetrics.set(DISK_HITS, diskHits.incrementAndGet())
+        return results
+    }
+
+    fun put(context: Context, key: String, results: DocumentReaderResults) {
+        val raw = results.rawResult ?: return
+        memory.put(key, results)
+        val directory = directory(context)
+        diskExecutor.execute {
+            try {
+                RawResultFile.write(File(directory, key + SUFFIX), raw)
+                RawResultFile.trim(directory, SUFFIX, maxBytes = maxDiskBytes)
+            } catch (e: IOException) {
+                Log.w(TAG, "Unable to store $key", e)
+            }
+        }
+    }
+
+    fun clearMemory() = memory.evictAll()
+
+    private fun directory(context: Context) = File(context.cacheDir, DIRECTORY)
+}
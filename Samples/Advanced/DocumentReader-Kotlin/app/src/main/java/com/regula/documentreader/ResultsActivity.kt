@@ -5,18 +5,22 @@ package com.regula.documentreader
 import android.content.Intent
 import android.graphics.Color
 import android.os.Bundle
+import android.os.Looper
+import android.os.MessageQueue
 import android.view.HapticFeedbackConstants
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.TextView
+import android.widget.Toast
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.res.ResourcesCompat
 import androidx.fragment.app.Fragment
 import androidx.recyclerview.widget.DividerItemDecoration
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.viewpager2.adapter.FragmentStateAdapter
+import androidx.viewpager2.widget.ViewPager2
 import com.google.android.material.tabs.TabLayout
-import com.regula.documentreader.Helpers.Companion.getResultTypeTranslation
 import com.regula.documentreader.Helpers.Companion.replaceFragment
 import com.regula.documentreader.Helpers.Companion.themeColor
 import com.regula.documentreader.Status.Companion.FAIL
@@ -25,16 +29,11 @@ import com.regula.documentreader.Status.Companion.UNDEFINED
 import com.regula.documentreader.api.enums.LCID
 import com.regula.documentreader.api.enums.eCheckResult.CH_CHECK_OK
 import com.regula.documentreader.api.enums.eCheckResult.CH_CHECK_WAS_NOT_DONE
-import com.regula.documentreader.api.enums.eRFID_DataFile_Type
 import com.regula.documentreader.api.enums.eRFID_NotificationAndErrorCodes.*
 import com.regula.documentreader.api.enums.eRPRM_FieldVerificationResult.*
-import com.regula.documentreader.api.enums.eRPRM_ResultType.*
-import com.regula.documentreader.api.results.DocumentReaderResults
-import com.regula.documentreader.api.results.DocumentReaderValue
 import com.regula.documentreader.databinding.ActivityResultsBinding
 import com.regula.documentreader.databinding.FragmentResultsBinding
 import com.regula.documentreader.databinding.FragmentRvBinding
-import java.io.Serializable
 import java.util.*
 
 class ResultsActivity : AppCompatActivity() {
@@ -43,255 +42,105 @@ class ResultsActivity : AppCompatActivity() {
     private lateinit var compareFragment: ResultsTabFragment
     private lateinit var rfidFragment: ResultsTabFragment
     private var selectedTabIndex = 0
+    private var savedState: Bundle? = null
+    private var handle = ResultsStore.NO_HANDLE
+    private var prefetch: MessageQueue.IdleHandler? = null
+
+    // shared by the RecyclerViews of all groups and tabs
+    val viewPool = CommonRecyclerAdapter.resultsViewPool()
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         binding = ActivityResultsBinding.inflate(layoutInflater)
         setContentView(binding.root)
         Helpers.opaqueStatusBar(binding.root)
+        // rows are inflated while the model is being built
+        prefetch = CommonRecyclerAdapter.prefetch(this, viewPool)
+        handle = intent.getLongExtra(ResultsStore.EXTRA_HANDLE, ResultsStore.NO_HANDLE)
+        ResultsStore.retain(handle)
         binding.backBtn.setOnClickListener { finish() }
         binding.directBtn.setOnClickListener {
-            startActivity(Intent(this, DirectResultsActivity::class.java))
+            startActivity(
+                Intent(this, DirectResultsActivity::class.java)
+                    .putExtra(ResultsStore.EXTRA_HANDLE, handle)
+            )
         }
 
-        if (results.overallResult == CH_CHECK_OK)
-            binding.overAllResultImage.setImageResource(R.drawable.reg_ok)
-        if (results.overallResult == CH_CHECK_WAS_NOT_DONE)
-            binding.overAllResultImage.setImageResource(android.R.drawable.ic_menu_help)
-
         binding.tabLayout.addOnTabSelectedListener(object : TabLayout.OnTabSelectedListener {
             override fun onTabSelected(tab: TabLayout.Tab?) {
-                when (tab!!.position) {
-                    0 -> {
-                        selectedTabIndex = 0
-                        replaceFragment(
-                            resultsFragment,
-                            this@ResultsActivity,
-                            R.id.results_compare_rfid
-                        )
-                    }
-                    1 -> {
-                        selectedTabIndex = 1
-                        replaceFragment(
-                            compareFragment,
-                            this@ResultsActivity,
-                            R.id.results_compare_rfid
-                        )
-                    }
-                    2 -> {
-                        selectedTabIndex = 2
-                        replaceFragment(
-                            rfidFragment,
-                            this@ResultsActivity,
-                            R.id.results_compare_rfid
-                        )
-                    }
-                }
+                selectedTabIndex = tab!!.position
+                // the tabs are filled in once the model is ready
+                if (!::resultsFragment.isInitialized)
+                    return
+                showTab(tab.position)
             }
 
             override fun onTabReselected(tab: TabLayout.Tab?) {}
             override fun onTabUnselected(tab: TabLayout.Tab?) {}
         })
 
-        if (savedInstanceState == null) {
-            resultsGroupedAttributes = initResults()
-            compareGroupedAttributes = initCompare()
-            rfidGroupedAttributes = initRfidData()
-            resultsFragment = ResultsTabFragment.newInstance(RESULTS)
-            compareFragment = ResultsTabFragment.newInstance(COMPARE)
-            rfidFragment = ResultsTabFragment.newInstance(RFID)
-            replaceFragment(resultsFragment, this, R.id.results_compare_rfid)
-            binding.tabLayout.getTabAt(selectedTabIndex)!!.select()
-        } else {
-            resultsFragment =
-                savedInstanceState.getSerializable("resultsFragment") as ResultsTabFragment
-            compareFragment =
-                savedInstanceState.getSerializable("compareFragment") as ResultsTabFragment
-            rfidFragment = savedInstanceState.getSerializable("rfidFragment") as ResultsTabFragment
-
-            resultsFragment.numberPickerIndex = savedInstanceState.getInt("resultsIndex")
-            compareFragment.numberPickerIndex = savedInstanceState.getInt("compareIndex")
-            rfidFragment.numberPickerIndex = savedInstanceState.getInt("rfidIndex")
-
-            selectedTabIndex = savedInstanceState.getInt("selectedTabIndex")
-        }
-        binding.tabLayout.getTabAt(selectedTabIndex)!!.select()
-
-        if (compareGroupedAttributes.isEmpty())
-            turnTabOff(1)
-        if (rfidGroupedAttributes.isEmpty())
-            turnTabOff(2)
+        savedState = savedInstanceState
+        selectedTabIndex = savedInstanceState?.getInt("selectedTabIndex") ?: 0
+        // normally already started by MainActivity while this activity was starting
+        ResultsModel.prepare(this, handle)
+        // delivered once started, so the fragment transactions never run after the state is saved
+        ResultsModel.observe(this, handle) { onModelReady(it) }
     }
 
-    override fun onSaveInstanceState(savedInstanceState: Bundle) {
-        super.onSaveInstanceState(savedInstanceState)
-
-        savedInstanceState.putSerializable("resultsFragment", resultsFragment)
-        savedInstanceState.putSerializable("compareFragment", compareFragment)
-        savedInstanceState.putSerializable("rfidFragment", rfidFragment)
-
-        savedInstanceState.putInt("resultsIndex", resultsFragment.numberPickerIndex)
-        savedInstanceState.putInt("compareIndex", compareFragment.numberPickerIndex)
-        savedInstanceState.putInt("rfidIndex", rfidFragment.numberPickerIndex)
-
-        savedInstanceState.putInt("selectedTabIndex", selectedTabIndex)
-    }
-
-    private fun initResults(): List<GroupedAttributes> {
-        val pickerData = mutableListOf<GroupedAttributes>()
-        val attributes = mutableListOf<Attribute>()
-
-        results.textResult?.fields?.forEach {
-            val name = it.getFieldName(this)
-            for (value in it.values) {
-                val valid = value.validity
-                val item = Attribute(name!!, value.value, it.lcid, valid, value.sourceType)
-                attributes.add(item)
-            }
-        }
-
-        results.graphicResult?.fields?.forEach {
-            val name = it.getFieldName(this) + " [${it.pageIndex}]"
-            val image = it.bitmap
-            val item = Attribute(name, "", source = it.sourceType, image = image)
-            attributes.add(item)
-        }
-
-        val types = attributes.map { it.source }.toSet()
-        for (type in types) {
-            val typed = attributes.filter { it.source == type }.toMutableList()
-            val group = GroupedAttributes(getResultTypeTranslation(type!!), typed)
-            pickerData.add(group)
-        }
-        pickerData.sortBy { it.type }
-
-        return pickerData
-    }
-
-    private fun initCompare(): List<GroupedAttributes> {
-        var pickerData = mutableListOf<GroupedAttributes>()
-
-        val values = results.textResult!!.fields.map { it.values }.flatten()
-        val comparisonTypes = values.map { it.sourceType }.toSet()
-
-        val typePairs = combinationsFrom(comparisonTypes.toMutableList(), 2)
-
-        for (pair in typePairs) {
-            val groupType =
-                "${getResultTypeTranslation(pair[1])} - ${getResultTypeTranslation(pair[0])}"
-            val comparisonGroup = GroupedAttributes(groupType, mutableListOf(), pair[1], pair[0])
-            pickerData.add(comparisonGroup)
+    private fun onModelReady(model: ResultsModel?) {
+        if (model == null) {
+            Toast.makeText(this, "Results are no longer available", Toast.LENGTH_LONG).show()
+            finish()
+            return
         }
+        binding.resultsSkeleton.visibility = View.GONE
+        if (model.results.overallResult == CH_CHECK_OK)
+            binding.overAllResultImage.setImageResource(R.drawable.reg_ok)
+        if (model.results.overallResult == CH_CHECK_WAS_NOT_DONE)
+            binding.overAllResultImage.setImageResource(android.R.drawable.ic_menu_help)
 
-        for (field in results.textResult!!.fields)
-            for (value in field.values)
-                for ((keyType, result) in value.comparison)
-                    if (result == RCF_COMPARE_TRUE || result == RCF_COMPARE_FALSE)
-                        tryToAddValueToGroup(
-                            field.getFieldName(this)!!,
-                            value,
-                            keyType,
-                            pickerData
-                        )
-
-        for (group in pickerData)
-            group.items = group.items.toSet().toMutableList()
-        pickerData = pickerData.filter { it.items.size > 0 }.toMutableList()
-
-        if (pickerData.size == 0)
+        // fragments only reference the model, a restored state just keeps the picked groups
+        val savedInstanceState = savedState ?: Bundle()
+        resultsFragment = ResultsTabFragment.newInstance(handle, RESULTS, savedInstanceState.getInt("resultsIndex"))
+        compareFragment = ResultsTabFragment.newInstance(handle, COMPARE, savedInstanceState.getInt("compareIndex"))
+        rfidFragment = ResultsTabFragment.newInstance(handle, RFID, savedInstanceState.getInt("rfidIndex"))
+        savedState = null
+        // selecting the already selected tab doesn't call the listener
+        val tab = binding.tabLayout.getTabAt(selectedTabIndex)!!
+        if (tab.isSelected)
+            showTab(selectedTabIndex)
+        else
+            tab.select()
+
+        if (model.compareGroupedAttributes.isEmpty())
             turnTabOff(1)
-
-        return pickerData
+        if (model.rfidGroupedAttributes.isEmpty())
+            turnTabOff(2)
     }
 
-    private fun tryToAddValueToGroup(
-        name: String,
-        value: DocumentReaderValue,
-        key: Int,
-        groups: MutableList<GroupedAttributes>
-    ) {
-        for (index in groups.indices) {
-            val group = groups[index]
-            if (group.comparisonLHS == null || group.comparisonRHS == null) return
-            val sourceEquality =
-                value.sourceType == group.comparisonLHS || value.sourceType == group.comparisonRHS
-            val targetEquality = key == group.comparisonLHS || key == group.comparisonRHS
-            if (sourceEquality && targetEquality) {
-                val item =
-                    Attribute(name, null, valid = RCF_COMPARE_TRUE, source = value.sourceType)
-                groups[index].items.add(item)
-                break
-            }
+    private fun showTab(position: Int) {
+        when (position) {
+            0 -> replaceFragment(resultsFragment, this, R.id.results_compare_rfid)
+            1 -> replaceFragment(compareFragment, this, R.id.results_compare_rfid)
+            2 -> replaceFragment(rfidFragment, this, R.id.results_compare_rfid)
         }
     }
 
-    private fun <T> combinationsFrom(
-        elements: MutableList<T>,
-        taking: Int
-    ): MutableList<MutableList<T>> {
-        if (elements.size < taking) return mutableListOf()
-        if (elements.isEmpty() || taking <= 0) return mutableListOf(mutableListOf())
-        if (taking == 1) return elements.map { mutableListOf(it) }.toMutableList()
-
-        val combinations = mutableListOf<MutableList<T>>()
-        var index = 0
-        while (index < elements.size) {
-            val element = elements[index]
-            repeat(index + 1) {
-                elements.removeFirst()
-            }
-            combinations += combinationsFrom(elements, taking - 1).map {
-                (mutableListOf(element) + it).toMutableList()
-            }
-            index += 1
-        }
-
-        return combinations
+    override fun onDestroy() {
+        super.onDestroy()
+        prefetch?.let { Looper.myQueue().removeIdleHandler(it) }
+        ResultsStore.release(handle, isFinishing)
     }
 
-    private fun initRfidData(): List<GroupedAttributes> {
-        val pickerData = mutableListOf<GroupedAttributes>()
-
-        if (results.rfidSessionData == null)
-            return pickerData
+    override fun onSaveInstanceState(savedInstanceState: Bundle) {
+        super.onSaveInstanceState(savedInstanceState)
+        savedInstanceState.putInt("selectedTabIndex", selectedTabIndex)
+        if (!::resultsFragment.isInitialized)
+            return
 
-        val dataGroup = GroupedAttributes("Data Groups", mutableListOf())
-        results.rfidSessionData!!.applications.forEach {
-            it.files.forEach { it1 ->
-                if (it1.readingStatus == RFID_ERROR_NOT_AVAILABLE.toLong())
-                    return pickerData
-                val attribute = Attribute(
-                    eRFID_DataFile_Type.getTranslation(this, it1.type),
-                    rfidStatus = it1.pAStatus.toInt()
-                )
-                dataGroup.items.add(attribute)
-            }
-        }
-        if (dataGroup.items.isNotEmpty())
-            pickerData.add(dataGroup)
-        if (results.rfidSessionData!!.sessionDataStatus == null)
-            return pickerData
-
-        val statusGroup = GroupedAttributes("Data Status", items = mutableListOf())
-        var attribute =
-            Attribute("AA", checkResult = results.rfidSessionData?.sessionDataStatus!!.AA)
-        statusGroup.items.add(attribute)
-        attribute = Attribute("BAC", checkResult = results.rfidSessionData?.sessionDataStatus!!.BAC)
-        statusGroup.items.add(attribute)
-        attribute = Attribute("CA", checkResult = results.rfidSessionData?.sessionDataStatus!!.CA)
-        statusGroup.items.add(attribute)
-        attribute = Attribute("PA", checkResult = results.rfidSessionData?.sessionDataStatus!!.PA)
-        statusGroup.items.add(attribute)
-        attribute =
-            Attribute("PACE", checkResult = results.rfidSessionData?.sessionDataStatus!!.PACE)
-        statusGroup.items.add(attribute)
-        attribute = Attribute("TA", checkResult = results.rfidSessionData?.sessionDataStatus!!.TA)
-        statusGroup.items.add(attribute)
-
-        if (statusGroup.items.size > 0)
-            pickerData.add(statusGroup)
-
-        return pickerData
+        savedInstanceState.putInt("resultsIndex", resultsFragment.numberPickerIndex)
+        savedInstanceState.putInt("compareIndex", compareFragment.numberPickerIndex)
+        savedInstanceState.putInt("rfidIndex", rfidFragment.numberPickerIndex)
     }
 
     private fun turnTabOff(tab: Int) {
@@ -306,25 +155,26 @@ class ResultsActivity : AppCompatActivity() {
     }
 
     companion object {
-        lateinit var results: DocumentReaderResults
-        var resultsGroupedAttributes: List<GroupedAttributes> = listOf()
-        var compareGroupedAttributes: List<GroupedAttributes> = listOf()
-        var rfidGroupedAttributes: List<GroupedAttributes> = listOf()
-
         const val RESULTS = 0
         const val COMPARE = 1
         const val RFID = 2
     }
 }
 
-class ResultsTabFragment : Fragment(), Serializable {
+class ResultsTabFragment : Fragment() {
     private var pickerDataReference = 0
     var numberPickerIndex: Int = 0
+    private val handle: Long
+        get() = requireArguments().getLong(ResultsStore.EXTRA_HANDLE)
 
     companion object {
-        fun newInstance(pickerData: Int): ResultsTabFragment {
+        fun newInstance(handle: Long, pickerData: Int, numberPickerIndex: Int = 0): ResultsTabFragment {
+            val args = Bundle()
+            args.putLong(ResultsStore.EXTRA_HANDLE, handle)
             val instance = ResultsTabFragment()
+            instance.arguments = args
             instance.pickerDataReference = pickerData
+            instance.numberPickerIndex = numberPickerIndex
             return instance
         }
     }
@@ -333,17 +183,23 @@ class ResultsTabFragment : Fragment(), Serializable {
         val binding = FragmentResultsBinding.inflate(inflater, vg, false)
 
         pickerDataReference = bundle?.getInt("pickerDataReference") ?: pickerDataReference
-        val pickerData = when (pickerDataReference) {
-            ResultsActivity.RESULTS -> ResultsActivity.resultsGroupedAttributes
-            ResultsActivity.COMPARE -> ResultsActivity.compareGroupedAttributes
-            else -> ResultsActivity.rfidGroupedAttributes
-        }
+        // restored before the model of these results is ready, the activity's skeleton stays
+        // visible until ResultsActivity shows the tab again
+        val model = ResultsModel.current?.takeIf { it.handle == handle } ?: return binding.root
+        val pickerData = model.groups(pickerDataReference)
         if (pickerData.isEmpty())
             return binding.root
 
-        val fragments = mutableListOf<GroupFragment>()
-        for (groupedAttribute in pickerData)
-            fragments.add(GroupFragment.newInstance(groupedAttribute))
+        // group pages are created when they're about to be shown, only neighbours are kept
+        binding.groupsPager.offscreenPageLimit = 1
+        binding.groupsPager.adapter =
+            GroupPagerAdapter(this, model.handle, pickerDataReference, pickerData.size)
+        binding.groupsPager.registerOnPageChangeCallback(object : ViewPager2.OnPageChangeCallback() {
+            override fun onPageSelected(position: Int) {
+                numberPickerIndex = position
+                binding.resultsPicker.value = position
+            }
+        })
 
         binding.resultsPicker.maxValue = pickerData.size - 1
         binding.resultsPicker.wrapSelectorWheel = false
@@ -351,11 +207,8 @@ class ResultsTabFragment : Fragment(), Serializable {
         binding.resultsPicker.setOnValueChangedListener { _, _, newVal ->
             numberPickerIndex = newVal
             binding.resultsPicker.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP)
-            replaceFragment(
-                fragments[newVal],
-                requireActivity(),
-                R.id.fragment_rv_results
-            )
+            // no smooth scroll, it would create every page in between
+            binding.groupsPager.setCurrentItem(newVal, false)
         }
 
         // if activity's onCreate we set pickerDataReference and update everything by switching to
@@ -363,11 +216,7 @@ class ResultsTabFragment : Fragment(), Serializable {
         if (pickerDataReference == ResultsActivity.RESULTS && bundle != null)
             numberPickerIndex = bundle.getInt("numberPickerIndex")
         binding.resultsPicker.value = numberPickerIndex
-        replaceFragment(
-            fragments[numberPickerIndex],
-            requireActivity(),
-            R.id.fragment_rv_results
-        )
+        binding.groupsPager.setCurrentItem(numberPickerIndex, false)
 
         return binding.root
     }
@@ -379,22 +228,51 @@ class ResultsTabFragment : Fragment(), Serializable {
     }
 }
 
+class GroupPagerAdapter(
+    fragment: Fragment,
+    private val handle: Long,
+    private val tab: Int,
+    private val count: Int
+) : FragmentStateAdapter(fragment) {
+    override fun getItemCount() = count
+    override fun createFragment(position: Int): Fragment =
+        GroupFragment.newInstance(handle, tab, position)
+}
+
+/**
+ * Shows one group of the [ResultsModel]. Arguments only reference the group (results handle,
+ * tab and group index) instead of carrying it serialized, the group is taken from the model.
+ */
 class GroupFragment : Fragment() {
-    private val groupedAttributes: GroupedAttributes
-        get() = requireArguments().getSerializable("groupedAttributes") as GroupedAttributes
+    private val handle: Long
+        get() = requireArguments().getLong(ResultsStore.EXTRA_HANDLE)
 
     companion object {
-        fun newInstance(groupedAttributes: GroupedAttributes): GroupFragment {
+        private const val TAB = "tab"
+        private const val GROUP = "group"
+
+        fun newInstance(handle: Long, tab: Int, group: Int): GroupFragment {
             val args = Bundle()
-            args.putSerializable("groupedAttributes", groupedAttributes as Serializable)
+            args.putLong(ResultsStore.EXTRA_HANDLE, handle)
+            args.putInt(TAB, tab)
+            args.putInt(GROUP, group)
             val instance = GroupFragment()
             instance.arguments = args
             return instance
         }
     }
 
+    /**
+     * The group the arguments point to in [model], null unless [model] is of the same results.
+     */
+    internal fun group(model: ResultsModel?) = model?.takeIf { it.handle == handle }
+        ?.groups(requireArguments().getInt(TAB))
+        ?.getOrNull(requireArguments().getInt(GROUP))
+
     override fun onCreateView(inflater: LayoutInflater, vg: ViewGroup?, bundle: Bundle?): View {
         val binding = FragmentRvBinding.inflate(inflater, vg, false)
+        // restored before the model is ready, ResultsActivity recreates the tabs then
+        val groupedAttributes = group(ResultsModel.current) ?: return binding.root
         val sectionsData = mutableListOf<Base>()
 
         var tag = 0
@@ -411,10 +289,11 @@ class GroupFragment : Fragment() {
 
         for (attribute in groupedAttributes.items) {
             when {
-                attribute.image != null -> sectionsData.add(
+                attribute.graphic != null -> sectionsData.add(
                     Image(
                         attribute.name,
-                        attribute.image!!
+                        handle,
+                        attribute.graphic!!
                     )
                 )
                 attribute.value != null -> {
@@ -457,7 +336,11 @@ class GroupFragment : Fragment() {
             }
         }
 
-        binding.recyclerView.layoutManager = LinearLayoutManager(activity)
+        val layoutManager = LinearLayoutManager(activity)
+        // rows go back to the shared pool when another group replaces this one
+        layoutManager.recycleChildrenOnDetach = true
+        binding.recyclerView.layoutManager = layoutManager
+        binding.recyclerView.setRecycledViewPool((requireActivity() as ResultsActivity).viewPool)
         binding.recyclerView.adapter = CommonRecyclerAdapter(sectionsData)
         binding.recyclerView.addItemDecoration(DividerItemDecoration(activity, 1))
 
@@ -0,0 +1,110 @@
+package com.regula.documentreader
+
+import com.regula.documentreader.api.enums.LCID.LATIN
+import com.regula.documentreader.api.enums.eRPRM_ResultType.NONE
+import com.regula.documentreader.api.results.DocumentReaderResults
+import com.regula.documentreader.api.results.DocumentReaderTextField
+
+/**
+ * Text fields of one [DocumentReaderResults] indexed by a packed
+ * (fieldType, lcid, sourceType, original) key. The index is built once per results with [of],
+ * every lookup after that is a single probe of a [LongObjectMap] instead of a scan over all
+ * fields and values.
+ *
+ * Lookups follow the DocumentReaderResults getters they replace: lcid defaults to LATIN, a
+ * sourceType of NONE means the field's own value, and the first matching field wins.
+ */
+class ResultsIndex private constructor(results: DocumentReaderResults) {
+    private val fields: LongObjectMap<DocumentReaderTextField>
+    private val values: LongObjectMap<String>
+
+    val fieldTypes: Set<Int>
+    val lcids: Set<Int>
+    val sourceTypes: Set<Int>
+
+    init {
+        val textFields = results.textResult?.fields ?: emptyList()
+        val valueCount = textFields.sumOf { it.values.size }
+        fields = LongObjectMap(textFields.size)
+        values = LongObjectMap((textFields.size + valueCount) * 4)
+        val fieldTypes = LinkedHashSet<Int>()
+        val lcids = LinkedHashSet<Int>()
+        val sourceTypes = LinkedHashSet<Int>()
+
+        for (field in textFields) {
+            fieldTypes.add(field.fieldType)
+            lcids.add(field.lcid)
+            fields.putIfAbsent(key(field.fieldType, field.lcid, NONE, false), field)
+            field.value()?.let {
+                putValue(field.fieldType, field.lcid, NONE, false, it.value)
+                putValue(field.fieldType, field.lcid, NONE, true, it.originalValue)
+            }
+            for (value in field.values) {
+                sourceTypes.add(value.sourceType)
+                for (lcid in intArrayOf(field.lcid, ANY_LCID)) {
+                    putValue(field.fieldType, lcid, value.sourceType, false, value.value)
+                    putValue(field.fieldType, lcid, value.sourceType, true, value.originalValue)
+                }
+            }
+        }
+        this.fieldTypes = fieldTypes
+        this.lcids = lcids
+        this.sourceTypes = sourceTypes
+    }
+
+    private fun putValue(fieldType: Int, lcid: Int, sourceType: Int, original: Boolean, value: String?) {
+        if (value != null)
+            values.putIfAbsent(key(fieldType, lcid, sourceType, original), value)
+    }
+
+    fun field(fieldType: Int, lcid: Int = LATIN): DocumentReaderTextField? =
+        fields[key(fieldType, lcid, NONE, false)]
+
+    fun value(
+        fieldType: Int,
+        lcid: Int = LATIN,
+        sourceType: Int = NONE,
+        original: Boolean = false
+    ): String? = values[key(fieldType, lcid, sourceType, original)]
+
+    /**
+     * Value of the first field of [fieldType] read from [sourceType], whatever its lcid.
+     */
+    fun valueBySource(fieldType: Int, sourceType: Int, original: Boolean = false): String? =
+        values[key(fieldType, ANY_LCID, sourceType, original)]
+
+    companion object {
+        private const val FIELD_BITS = 23
+        private const val LCID_BITS = 23
+        private const val SOURCE_BITS = 16
+        private const val ANY_LCID = (1 shl LCID_BITS) - 1
+
+        @Volatile
+        private var last: Pair<DocumentReaderResults, ResultsIndex>? = null
+
+        /**
+         * Index of [results], built on the first call for this instance.
+         */
+        fun of(results: DocumentReaderResults): ResultsIndex {
+            last?.let { if (it.first === results) return it.second }
+            val index = ResultsIndex(results)
+            last = Pair(results, index)
+            return index
+        }
+
+        /**
+         * Bit 63 is always set so no key is 0, then fieldType, lcid, sourceType + 1 (NONE is -1)
+         * and original in the lowest bit.
+         */
+        fun key(fieldType: Int, lcid: Int, sourceType: Int, original: Boolean): Long {
+            val field = fieldType.toLong() and ((1L shl FIELD_BITS) - 1)
+            val language = lcid.toLong() and ((1L shl LCID_BITS) - 1)
+            val source = (sourceType + 1).toLong() and ((1L shl SOURCE_BITS) - 1)
+            return (1L shl 63) or
+                    (field shl (LCID_BITS + SOURCE_BITS + 1)) or
+                    (language shl (SOURCE_BITS + 1)) or
+                    (source shl 1) or
+                    (if (original) 1L else 0L)
+        }
+    }
+}
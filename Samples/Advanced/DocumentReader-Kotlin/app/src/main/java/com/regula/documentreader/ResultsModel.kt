@@ -0,0 +1,276 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import androidx.fragment.app.FragmentActivity
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.Observer
+import com.regula.documentreader.Helpers.Companion.getResultTypeTranslation
+import com.regula.documentreader.api.enums.eRFID_DataFile_Type
+import com.regula.documentreader.api.enums.eRFID_NotificationAndErrorCodes.RFID_ERROR_NOT_AVAILABLE
+import com.regula.documentreader.api.enums.eRPRM_FieldVerificationResult.RCF_COMPARE_FALSE
+import com.regula.documentreader.api.enums.eRPRM_FieldVerificationResult.RCF_COMPARE_TRUE
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * The grouped attributes shown by the three tabs of [ResultsActivity].
+ *
+ * The model is built off the main thread: [prepare] is called as soon as results arrive, so it
+ * is computed while the activity transition runs, [ResultsActivity] renders a placeholder until
+ * [observe] delivers it, once it's started. Results are taken from [ResultsStore] by [handle], after the process was
+ * killed they're reloaded from disk on the same background thread.
+ */
+class ResultsModel(
+    val handle: Long,
+    val results: DocumentReaderResults,
+    val resultsGroupedAttributes: List<GroupedAttributes>,
+    val compareGroupedAttributes: List<GroupedAttributes>,
+    val rfidGroupedAttributes: List<GroupedAttributes>
+) {
+    /**
+     * Groups of the [ResultsActivity] tab [tab].
+     */
+    fun groups(tab: Int) = when (tab) {
+        ResultsActivity.RESULTS -> resultsGroupedAttributes
+        ResultsActivity.COMPARE -> compareGroupedAttributes
+        else -> rfidGroupedAttributes
+    }
+
+    private class Builder(private val context: Context, private val results: DocumentReaderResults) {
+        fun initResults(): List<GroupedAttributes> {
+            val pickerData = mutableListOf<GroupedAttributes>()
+            val attributes = mutableListOf<Attribute>()
+
+            results.textResult?.fields?.forEach {
+                val name = it.getFieldName(context)
+                for (value in it.values) {
+                    val valid = value.validity
+                    val item = Attribute(name!!, value.value, it.lcid, valid, value.sourceType)
+                    attributes.add(item)
+                }
+            }
+
+            // images are only decoded when shown, see ThumbnailCache
+            results.graphicResult?.fields?.forEachIndexed { index, it ->
+                val name = it.getFieldName(context) + " [${it.pageIndex}]"
+                val item = Attribute(name, "", source = it.sourceType, graphic = index)
+                attributes.add(item)
+            }
+
+            val types = attributes.map { it.source }.toSet()
+            for (type in types) {
+                val typed = attributes.filter { it.source == type }.toMutableList()
+                val group = GroupedAttributes(getResultTypeTranslation(type!!), typed)
+                pickerData.add(group)
+            }
+            pickerData.sortBy { it.type }
+
+            return pickerData
+        }
+
+        fun initCompare(): List<GroupedAttributes> {
+            val fields = results.textResult?.fields ?: return listOf()
+            val values = fields.map { it.values }.flatten()
+            val comparisonTypes = values.map { it.sourceType }.toSet().toList()
+
+            val groups = mutableListOf<GroupedAttributes>()
+            val items = mutableListOf<LinkedHashSet<Attribute>>()
+            // group index by its unordered pair of source types, and by the source type alone for
+            // values compared against their own source, which land in the first group of that type
+            val groupByPair = HashMap<Long, Int>()
+            val firstGroupByType = HashMap<Int, Int>()
+            for ((lhs, rhs) in typePairs(comparisonTypes)) {
+                val groupType = "${getResultTypeTranslation(rhs)} - ${getResultTypeTranslation(lhs)}"
+                val index = groups.size
+                groups.add(GroupedAttributes(groupType, mutableListOf(), rhs, lhs))
+                items.add(LinkedHashSet())
+                groupByPair[pairKey(lhs, rhs)] = index
+                firstGroupByType.putIfAbsent(lhs, index)
+                firstGroupByType.putIfAbsent(rhs, index)
+            }
+
+            for (field in fields) {
+                var name: String? = null
+                for (value in field.values)
+                    for ((keyType, result) in value.comparison) {
+                        if (result != RCF_COMPARE_TRUE && result != RCF_COMPARE_FALSE)
+                            continue
+                        val index =
+                            if (keyType == value.sourceType) firstGroupByType[keyType]
+                            else groupByPair[pairKey(value.sourceType, keyType)]
+                        if (index != null) {
+                            name = name ?: field.getFieldName(context)!!
+                            items[index].add(
+                                Attribute(name, null, valid = RCF_COMPARE_TRUE, source = value.sourceType)
+                            )
+                        }
+                    }
+            }
+
+            val pickerData = mutableListOf<GroupedAttributes>()
+            for (index in groups.indices)
+                if (items[index].isNotEmpty()) {
+                    groups[index].items = items[index].toMutableList()
+                    pickerData.add(groups[index])
+                }
+
+            return pickerData
+        }
+
+        /**
+         * The source type pairs compared so far: the first type with each following one, then
+         * every time skipping ahead by one more type than before (t0-t1..tn, t2-t3..tn, t5-t6..tn,
+         * ...). Kept as is so the comparison tab doesn't change.
+         */
+        private fun typePairs(types: List<Int>): List<Pair<Int, Int>> {
+            val pairs = mutableListOf<Pair<Int, Int>>()
+            var start = 0
+            var index = 0
+            while (index < types.size - start) {
+                val element = types[start + index]
+                start += index + 1
+                for (other in start until types.size)
+                    pairs.add(Pair(element, types[other]))
+                index++
+            }
+            return pairs
+        }
+
+        private fun pairKey(first: Int, second: Int): Long {
+            val low = minOf(first, second)
+            val high = maxOf(first, second)
+            return (high.toLong() shl 32) or (low.toLong() and 0xFFFFFFFFL)
+        }
+
+        fun initRfidData(): List<GroupedAttributes> {
+            val pickerData = mutableListOf<GroupedAttributes>()
+
+            if (results.rfidSessionData == null)
+                return pickerData
+
+            val dataGroup = GroupedAttributes("Data Groups", mutableListOf())
+            results.rfidSessionData!!.applications.forEach {
+                it.files.forEach { it1 ->
+                    if (it1.readingStatus == RFID_ERROR_NOT_AVAILABLE.toLong())
+                        return pickerData
+                    val attribute = Attribute(
+                        eRFID_DataFile_Type.getTranslation(context, it1.type),
+                        rfidStatus = it1.pAStatus.toInt()
+                    )
+                    dataGroup.items.add(attribute)
+                }
+            }
+            if (dataGroup.items.isNotEmpty())
+                pickerData.add(dataGroup)
+            if (results.rfidSessionData!!.sessionDataStatus == null)
+                return pickerData
+
+            val statusGroup = GroupedAttributes("Data Status", items = mutableListOf())
+            var attribute =
+                Attribute("AA", checkResult = results.rfidSessionData?.sessionDataStatus!!.AA)
+            statusGroup.items.add(attribute)
+            attribute = Attribute("BAC", checkResult = results.rfidSessionData?.sessionDataStatus!!.BAC)
+            statusGroup.items.add(attribute)
+            attribute = Attribute("CA", checkResult = results.rfidSessionData?.sessionDataStatus!!.CA)
+            statusGroup.items.add(attribute)
+            attribute = Attribute("PA", checkResult = results.rfidSessionData?.sessionDataStatus!!.PA)
+            statusGroup.items.add(attribute)
+            attribute =
+                Attribute("PACE", checkResult = results.rfidSessionData?.sessionDataStatus!!.PACE)
+            statusGroup.items.add(attribute)
+            attribute = Attribute("TA", checkResult = results.rfidSessionData?.sessionDataStatus!!.TA)
+            statusGroup.items.add(attribute)
+
+            if (statusGroup.items.size > 0)
+                pickerData.add(statusGroup)
+
+            return pickerData
+        }
+
+    }
+
+    companion object {
+        const val BUILD = "results.model_build"
+
+        private val executor = Executors.newSingleThreadExecutor()
+        private val handler = Handler(Looper.getMainLooper())
+        private class Published(val handle: Long, val model: ResultsModel?)
+
+        private val published = MutableLiveData<Published>()
+        private var pending: Future<*>? = null
+        private var generation = 0
+        private var handle = ResultsStore.NO_HANDLE
+
+        /**
+         * The model of the latest results, null while it's being built or if the results are
+         * no longer in [ResultsStore].
+         */
+        var current: ResultsModel? = null
+            private set
+
+        /**
+         * Starts building the model of the results stored under [handle] in the background,
+         * replacing the previous one. Must be called on the main thread.
+         */
+        fun prepare(context: Context, handle: Long) {
+            if (handle == this.handle)
+                return
+            pending?.cancel(false)
+            this.handle = handle
+            current = null
+            val generation = ++this.generation
+            val appContext = context.applicationContext
+            pending = executor.submit {
+                val model = ResultsStore.get(handle)?.let {
+                    PerformanceMetrics.measure(BUILD) { build(appContext, handle, it) }
+                }
+                handler.post { publish(generation, model) }
+            }
+        }
+
+        private fun publish(generation: Int, model: ResultsModel?) {
+            if (generation != this.generation)
+                return
+            current = model
+            pending = null
+            published.value = Published(handle, model)
+        }
+
+        /**
+         * Builds the model on the calling thread.
+         */
+        fun build(context: Context, handle: Long, results: DocumentReaderResults): ResultsModel {
+            val builder = Builder(context, results)
+            return ResultsModel(
+                handle,
+                results,
+                builder.initResults(),
+                builder.initCompare(),
+                builder.initRfidData()
+            )
+        }
+
+        /**
+         * Calls [observer] once with the model of [handle] as soon as it's ready and [activity]
+         * is started. The model is null if the results are gone. If the model was replaced by
+         * another one in the meantime, e.g. while [activity] was in the back stack, it's
+         * prepared again. Must be called on the main thread.
+         */
+        fun observe(activity: FragmentActivity, handle: Long, observer: (ResultsModel?) -> Unit) {
+            val appContext = activity.applicationContext
+            published.observe(activity, object : Observer<Published> {
+                override fun onChanged(value: Published) {
+                    if (value.handle != handle) {
+                        prepare(appContext, handle)
+                        return
+                    }
+                    published.removeObserver(this)
+                    observer(value.model)
+                }
+            })
+        }
+    }
+}
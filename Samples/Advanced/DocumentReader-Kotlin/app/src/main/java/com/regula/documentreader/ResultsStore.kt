@@ -0,0 +1,245 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
+import com.regula.documentreader.api.results.DocumentReaderResults
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+/**
+ * Hands results between screens by handle instead of static fields. Screens put results with
+ * [put] and pass the returned handle in their Intent ([EXTRA_HANDLE]) or saved state, the
+ * receiving screen gets them back with [get].
+ *
+ * Results are kept in memory up to [memoryBudget], the least recently used ones are spilled to
+ * filesDir/results_store as gzipped rawResult past it. [spill] writes every entry when the app
+ * goes to the background, so a handle still resolves after the process is killed: [get] reloads
+ * spilled entries lazily. Screens showing a handle [retain] it and [release] it when they're
+ * gone, the results of a handle released for good are dropped. Files of handles nobody retains
+ * are trimmed to the [MAX_FILES] most recent.
+ *
+ * [get] may read from disk, don't call it on the main thread, use [load] there.
+ */
+object ResultsStore {
+    const val EXTRA_HANDLE = "com.regula.documentreader.RESULTS_HANDLE"
+    const val NO_HANDLE = 0L
+    const val RELOAD = "results_store.reload"
+    const val MEMORY_BYTES = "results_store.memory_bytes"
+
+    private const val TAG = "ResultsStore"
+    private const val DIRECTORY = "results_store"
+    private const val SUFFIX = ".json.gz"
+    private const val MAX_FILES = 8
+
+    private class Entry(val handle: Long, var results: DocumentReaderResults?, val bytes: Long) {
+        var persisted = false
+        var released = false
+    }
+
+    // access order, the first entry is the least recently used
+    private val entries = LinkedHashMap<Long, Entry>(16, 0.75f, true)
+    // retain counts of the handles screens show
+    private val retained = HashMap<Long, Int>()
+    private val diskExecutor = Executors.newSingleThreadExecutor()
+    private val handler = Handler(Looper.getMainLooper())
+    private var memoryBytes = 0L
+    private var lastHandle = NO_HANDLE
+    private lateinit var directory: File
+
+    var memoryBudget = 16L * 1024 * 1024
+        @Synchronized set(value) {
+            field = value
+            trim()
+        }
+
+    fun init(context: Context) {
+        directory = File(context.filesDir, DIRECTORY)
+    }
+
+    /**
+     * Stores [results] and returns their handle, results already in the store keep theirs.
+     * Handles are time based, so they stay unique across process restarts.
+     */
+    @Synchronized
+    fun put(results: DocumentReaderResults): Long {
+        entries.values.firstOrNull { it.results === results }?.let { return it.handle }
+        val handle = maxOf(System.currentTimeMillis(), lastHandle + 1)
+        lastHandle = handle
+        val entry = Entry(handle, results, bytes(results))
+        entries[handle] = entry
+        memoryBytes += entry.bytes
+        trim()
+        return handle
+    }
+
+    /**
+     * Writes the results of [handle] to disk now and waits for it, so the handle resolves after
+     * the process is killed. Must not be called on the main thread.
+     */
+    fun persist(handle: Long) {
+        val entry = synchronized(this) { entries[handle] } ?: return
+        val raw = entry.results?.rawResult ?: return
+        // on the disk thread, spill() may be writing the same file
+        diskExecutor.submit(Callable {
+            if (!synchronized(this) { entry.persisted || entry.released }) {
+                RawResultFile.write(file(handle), raw)
+                synchronized(this) { entry.persisted = true }
+            }
+        }).get()
+    }
+
+    /**
+     * Results of [handle], reloaded from disk if they were spilled, or null if they're gone.
+     */
+    fun get(handle: Long): DocumentReaderResults? {
+        if (handle == NO_HANDLE)
+            return null
+        synchronized(this) {
+            entries[handle]?.results?.let { return it }
+        }
+        val results = PerformanceMetrics.measure(RELOAD) { RawResultFile.read(file(handle)) }
+            ?: return null
+        synchronized(this) {
+            val entry = entries.getOrPut(handle) { Entry(handle, null, bytes(results)) }
+            entry.persisted = true
+            if (entry.results == null) {
+                entry.results = results
+                memoryBytes += entry.bytes
+                trim()
+            }
+            return entry.results
+        }
+    }
+
+    /**
+     * Passes the results of [handle] to [callback] on the main thread, right away if they're in
+     * memory, after reading them back from disk in the background otherwise.
+     */
+    fun load(handle: Long, callback: (DocumentReaderResults?) -> Unit) {
+        val results = synchronized(this) { entries[handle]?.results }
+        if (results != null || handle == NO_HANDLE) {
+            callback(results)
+            return
+        }
+        diskExecutor.execute {
+            val loaded = get(handle)
+            handler.post { callback(loaded) }
+        }
+    }
+
+    /**
+     * Keeps the file of [handle] from being trimmed while a screen shows it. Screens recreated
+     * after the process was killed retain their handle again.
+     */
+    @Synchronized
+    fun retain(handle: Long) {
+        if (handle != NO_HANDLE)
+            retained[handle] = (retained[handle] ?: 0) + 1
+    }
+
+    /**
+     * Undoes [retain]. If the screen is [finished] for good and no other one retains [handle],
+     * its results are dropped from memory and disk.
+     */
+    @Synchronized
+    fun release(handle: Long, finished: Boolean) {
+        val count = retained[handle] ?: return
+        if (count > 1) {
+            retained[handle] = count - 1
+            return
+        }
+        retained.remove(handle)
+        if (!finished)
+            return
+        entries.remove(handle)?.let {
+            if (it.results != null)
+                memoryBytes -= it.bytes
+            it.results = null
+            it.released = true
+        }
+        PerformanceMetrics.set(MEMORY_BYTES, memoryBytes)
+        val file = file(handle)
+        diskExecutor.execute { file.delete() }
+    }
+
+    /**
+     * Writes all entries that aren't on disk yet, with [evict] they're also dropped from memory
+     * once written.
+     */
+    @Synchronized
+    fun spill(evict: Boolean) {
+        for (entry in entries.values.toList())
+            spill(entry, evict)
+    }
+
+    private fun trim() {
+        PerformanceMetrics.set(MEMORY_BYTES, memoryBytes)
+        var over = memoryBytes - memoryBudget
+        // the newest entry stays in memory, it's about to be shown
+        for (entry in entries.values.toList().dropLast(1)) {
+            if (over <= 0)
+                break
+            if (entry.results != null) {
+                over -= entry.bytes
+                spill(entry, true)
+            }
+        }
+    }
+
+    private fun spill(entry: Entry, evict: Boolean) {
+        val results = entry.results ?: return
+        val raw = results.rawResult ?: return
+        diskExecutor.execute {
+            if (!entry.persisted) {
+                // released meanwhile
+                if (synchronized(this) { entry.released })
+                    return@execute
+                try {
+                    RawResultFile.write(file(entry.handle), raw)
+                    synchronized(this) { entry.persisted = true }
+                    trimFiles()
+                } catch (e: IOException) {
+                    Log.w(TAG, "Unable to spill ${entry.handle}", e)
+                    return@execute
+                }
+            }
+            if (evict)
+                evict(entry)
+        }
+    }
+
+    @Synchronized
+    private fun evict(entry: Entry) {
+        // results are only dropped after they're written, get() never misses in between
+        if (entry.results == null || !entry.persisted)
+            return
+        entry.results = null
+        memoryBytes -= entry.bytes
+        PerformanceMetrics.set(MEMORY_BYTES, memoryBytes)
+        // get() adds the entry again when it reloads the file
+        entries.remove(entry.handle)
+    }
+
+    /**
+     * Deletes the oldest files of handles nobody retains past [MAX_FILES]. Entries still in
+     * memory whose file went are written again when they're spilled next time.
+     */
+    private fun trimFiles() {
+        val keep = synchronized(this) { retained.keys.map { file(it).name }.toSet() }
+        val deleted = RawResultFile.trim(directory, SUFFIX, maxFiles = MAX_FILES) { it.name in keep }
+        synchronized(this) {
+            for (file in deleted) {
+                val handle = file.name.removeSuffix(SUFFIX).toLongOrNull() ?: continue
+                entries[handle]?.persisted = false
+            }
+        }
+    }
+
+    private fun file(handle: Long) = File(directory, handle.toString() + SUFFIX)
+
+    private fun bytes(results: DocumentReaderResults) = (results.rawResult?.length ?: 0) * 2L
+}
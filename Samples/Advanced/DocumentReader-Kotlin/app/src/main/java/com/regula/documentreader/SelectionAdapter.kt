@@ -44,7 +44,7 @@ class SelectionAdapter(private val items: List<Direct>, var selectedId: String)
         }
 
         private fun init(direct: Direct) {
-            binding.title.text = getTranslation(direct.type, direct.title, context)
+            binding.title.text = getTranslation(direct.type, direct.value, context)
             binding.value.text = context.getString(R.string.check)
             binding.value.setTextColor(context.getColor(R.color.blue))
             binding.value.visibility = View.INVISIBLE
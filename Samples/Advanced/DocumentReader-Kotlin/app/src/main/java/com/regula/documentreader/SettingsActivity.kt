@@ -21,6 +21,7 @@ import com.regula.documentreader.Helpers.Companion.toIntArray
 import com.regula.documentreader.Scan.Companion.ACTION_TYPE_CUSTOM
 import com.regula.documentreader.SettingsActivity.Companion.functionality
 import com.regula.documentreader.SettingsActivity.Companion.isDataEncryptionEnabled
+import com.regula.documentreader.SettingsActivity.Companion.isRequestCompressionEnabled
 import com.regula.documentreader.api.DocumentReader.Instance
 import com.regula.documentreader.api.enums.DocReaderFrame.*
 import com.regula.documentreader.api.params.Functionality
@@ -100,6 +101,7 @@ class SettingsActivity : FragmentActivity() {
         var useCustomRfidActivity = false
         var functionality = Functionality()
         var isDataEncryptionEnabled = false
+        var isRequestCompressionEnabled = false
     }
 }
 
@@ -130,6 +132,12 @@ class ApplicationSettingsFragment : Fragment() {
                 { isDataEncryptionEnabled },
                 { isDataEncryptionEnabled = it })
         )
+        sectionsData.add(
+            Switch(
+                "Compress requests",
+                { isRequestCompressionEnabled },
+                { isRequestCompressionEnabled = it })
+        )
         binding.recyclerView.layoutManager = LinearLayoutManager(activity)
         binding.recyclerView.adapter = CommonRecyclerAdapter(sectionsData)
         binding.recyclerView.addItemDecoration(DividerItemDecoration(activity, 1))
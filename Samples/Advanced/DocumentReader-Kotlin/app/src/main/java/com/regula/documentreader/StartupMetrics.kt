@@ -0,0 +1,66 @@
+package com.regula.documentreader
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import android.view.View
+import com.regula.documentreader.Helpers.Companion.beforeRender
+import java.io.File
+
+/**
+ * Names of the bootstrap phases recorded in [PerformanceMetrics] and the report that is written
+ * once the scenario picker is rendered for the first time.
+ *
+ * The report is logged under the "StartupMetrics" tag and stored in files/startup_metrics.json:
+ * `adb shell run-as com.regula.documentreader cat files/startup_metrics.json`
+ */
+object StartupMetrics {
+    const val PREFIX = "startup."
+    const val LICENSE_READ = "startup.license_read"
+    const val DATABASE_PREPARE_DOWNLOAD = "startup.database_prepare.download"
+    const val DATABASE_PREPARE_PRESENT = "startup.database_prepare.present"
+    const val READER_INITIALIZE = "startup.reader_initialize"
+    const val FIRST_RENDER = "startup.first_render"
+    const val PROCESS_TO_FIRST_RENDER = "startup.process_to_first_render"
+
+    private const val TAG = "StartupMetrics"
+    private const val REPORT_FILE = "startup_metrics.json"
+
+    private var processStartMs = 0L
+    private var reported = false
+
+    fun onProcessStart() {
+        processStartMs = SystemClock.elapsedRealtime()
+    }
+
+    /**
+     * Measures the time until [view] draws its next frame and writes the report. Only the first
+     * call per process is tracked.
+     */
+    fun trackFirstRender(view: View) {
+        if (reported) return
+        reported = true
+        val render = PerformanceMetrics.begin(FIRST_RENDER)
+        view.beforeRender {
+            render.end()
+            if (processStartMs != 0L)
+                PerformanceMetrics.record(
+                    PROCESS_TO_FIRST_RENDER,
+                    (SystemClock.elapsedRealtime() - processStartMs).toDouble()
+                )
+            writeReport(view.context)
+        }
+    }
+
+    private fun writeReport(context: Context) {
+        val file = File(context.filesDir, REPORT_FILE)
+        Thread {
+            Log.i(TAG, PerformanceMetrics.toText(PREFIX))
+            try {
+                file.writeText(PerformanceMetrics.toJson(PREFIX).toString(2))
+            } catch (e: Exception) {
+                Log.w(TAG, "Unable to write $REPORT_FILE", e)
+            }
+        }.start()
+    }
+}
@@ -0,0 +1,92 @@
+package com.regula.documentreader
+
+import com.github.kittinunf.fuel.core.Request
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.PipedInputStream
+import java.io.PipedOutputStream
+import java.util.concurrent.Executors
+import java.util.zip.Deflater
+import java.util.zip.GZIPOutputStream
+
+/**
+ * A request body produced by [write] while it's being sent instead of a String built up front.
+ * [write] runs on a producer thread and writes into a pipe the request reads from, gzipped with
+ * [level] if [gzip] is set. [chunkSize] is only the size of the pipe and of the gzip buffer,
+ * i.e. how much of the body is buffered at most. It isn't the size of the HTTP chunks, the
+ * chunked framing on the wire is left to the HTTP client.
+ *
+ * The body is produced again for every attempt, so [write] must be repeatable.
+ */
+class StreamedBody(
+    private val gzip: Boolean = false,
+    private val level: Int = Deflater.DEFAULT_COMPRESSION,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE,
+    private val write: (OutputStream) -> Unit
+) {
+    /**
+     * [write] failed, the body was cut short.
+     */
+    class ProducerFailure(cause: Throwable) : IOException("Request body producer failed", cause)
+
+    private class ProducerInputStream(size: Int) : PipedInputStream(size) {
+        @Volatile
+        var failure: Throwable? = null
+
+        override fun read() = checkEnd(super.read())
+
+        override fun read(b: ByteArray, off: Int, len: Int) = checkEnd(super.read(b, off, len))
+
+        // a body cut short by a failing producer must not be sent as if it were complete
+        private fun checkEnd(read: Int): Int {
+            if (read == -1)
+                failure?.let { throw ProducerFailure(it) }
+            return read
+        }
+    }
+
+    /**
+     * Starts producing the body and returns the stream to read it from.
+     */
+    fun open(): InputStream {
+        val input = ProducerInputStream(chunkSize)
+        val pipe = PipedOutputStream(input)
+        producers.execute {
+            try {
+                val output = if (gzip) LevelGzipOutputStream(pipe, chunkSize, level) else pipe
+                output.use { write(it) }
+            } catch (e: Throwable) {
+                input.failure = e
+                try {
+                    pipe.close()
+                } catch (ignored: IOException) {
+                }
+            }
+        }
+        return input
+    }
+
+    /**
+     * Sets this as the body of [request], with Content-Encoding: gzip if it's compressed. The
+     * length is unknown, so the body is sent chunked.
+     */
+    fun applyTo(request: Request): Request {
+        if (gzip)
+            request.header("Content-Encoding", "gzip")
+        return request.body({ open() }, null, repeatable = false)
+    }
+
+    private class LevelGzipOutputStream(out: OutputStream, size: Int, level: Int) :
+        GZIPOutputStream(out, size) {
+        init {
+            def.setLevel(level)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 16 * 1024
+
+        private val producers = Executors.newCachedThreadPool()
+    }
+}
@@ -0,0 +1,110 @@
+package com.regula.documentreader
+
+import android.graphics.Bitmap
+import android.os.Handler
+import android.os.Looper
+import android.util.LruCache
+import android.view.View
+import android.widget.ImageView
+import androidx.core.view.doOnLayout
+import java.util.concurrent.Executors
+import kotlin.math.min
+import kotlin.math.roundToInt
+
+/**
+ * Thumbnails of graphic fields for the results screens. Graphic attributes only hold the index
+ * of their field, the image is materialized when it's bound, scaled down to the space the
+ * ImageView has in its row, and kept in an LRU cache of at most [maxBytes]. Full-size images are
+ * not retained. Views asking for a thumbnail that's being loaded wait for the same load.
+ */
+object ThumbnailCache {
+    const val LOAD = "thumbnail.load"
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val executor = Executors.newFixedThreadPool(2)
+    // views waiting for a thumbnail being loaded, by cache key, main thread only
+    private val loading = HashMap<String, MutableList<ImageView>>()
+
+    var maxBytes = (Runtime.getRuntime().maxMemory() / 16).toInt()
+        set(value) {
+            field = value
+            cache.resize(value)
+        }
+
+    private val cache = object : LruCache<String, Bitmap>(maxBytes) {
+        override fun sizeOf(key: String, value: Bitmap) = value.allocationByteCount
+    }
+
+    /**
+     * Shows the graphic field [index] of the results stored under [handle] in [view], loading it
+     * in the background if it's not cached. Must be called on the main thread.
+     */
+    fun load(view: ImageView, handle: Long, index: Int) {
+        val graphic = "$handle:$index"
+        view.tag = graphic
+        val row = view.parent as? View ?: return
+        if (row.width == 0) {
+            view.setImageDrawable(null)
+            // a new row only gets its width in the next layout pass
+            if (!row.isLaidOut || row.isLayoutRequested)
+                row.doOnLayout {
+                    if (view.tag == graphic)
+                        load(view, handle, index)
+                }
+            return
+        }
+        val rowWidth = row.width - row.paddingLeft - row.paddingRight
+        val maxWidth = available(view.layoutParams.width, rowWidth) -
+                view.paddingLeft - view.paddingRight
+        val maxHeight = available(view.layoutParams.height, Int.MAX_VALUE) -
+                view.paddingTop - view.paddingBottom
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            view.setImageDrawable(null)
+            return
+        }
+        val key = "$graphic:${maxWidth}x$maxHeight"
+        view.tag = key
+        cache.get(key)?.let {
+            view.setImageBitmap(it)
+            return
+        }
+
+        view.setImageDrawable(null)
+        loading[key]?.let {
+            it.add(view)
+            return
+        }
+        loading[key] = mutableListOf(view)
+        executor.execute {
+            val thumbnail = PerformanceMetrics.measure(LOAD) {
+                thumbnail(handle, index, maxWidth, maxHeight)
+            }
+            if (thumbnail != null)
+                cache.put(key, thumbnail)
+            handler.post {
+                for (waiting in loading.remove(key).orEmpty())
+                    // the view may have been rebound to another field meanwhile
+                    if (thumbnail != null && waiting.tag == key)
+                        waiting.setImageBitmap(thumbnail)
+            }
+        }
+    }
+
+    fun clear() = cache.evictAll()
+
+    /**
+     * A fixed layout size, otherwise what the parent has to offer for wrap_content.
+     */
+    private fun available(layoutSize: Int, parentSize: Int) =
+        if (layoutSize > 0) layoutSize else parentSize
+
+    private fun thumbnail(handle: Long, index: Int, maxWidth: Int, maxHeight: Int): Bitmap? {
+        val image = ResultsStore.get(handle)?.graphicResult?.fields?.getOrNull(index)?.bitmap ?: return null
+        val scale = min(1f, min(maxWidth.toFloat() / image.width, maxHeight.toFloat() / image.height))
+        if (scale == 1f)
+            return image
+        val width = (image.width * scale).roundToInt().coerceAtLeast(1)
+        val height = (image.height * scale).roundToInt().coerceAtLeast(1)
+        return Bitmap.createScaledBitmap(image, width, height, true)
+    }
+}
@@ -1,6 +1,5 @@
 package com.regula.documentreader
 
-import android.graphics.Bitmap
 import android.view.View
 import java.io.Serializable
 
@@ -98,9 +97,13 @@ class TextResult(
     var color: Int
 ) : Base(title)
 
+/**
+ * [graphic] is the index of the field in graphicResult, see [ThumbnailCache].
+ */
 class Image(
     title: String,
-    var value: Bitmap,
+    val handle: Long,
+    var graphic: Int,
 ) : Base(title)
 
 class Status(
@@ -117,7 +120,8 @@ class Status(
 class Direct(
     title: String,
     var presented: Boolean,
-    val type: Int
+    val type: Int,
+    val value: Int
 ) : Base(title)
 
 class Attribute(
@@ -126,8 +130,7 @@ class Attribute(
     var lcid: Int? = null,
     var valid: Int? = null,
     var source: Int? = null,
-    @Transient
-    var image: Bitmap? = null,
+    var graphic: Int? = null,
     var equality: Boolean = true,
     var rfidStatus: Int? = null,
     var checkResult: Int? = null,
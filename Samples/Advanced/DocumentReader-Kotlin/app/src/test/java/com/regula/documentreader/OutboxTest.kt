@@ -0,0 +1,248 @@
+package com.regula.documentreader
+
+import com.github.kittinunf.fuel.httpPost
+import com.sun.net.httpserver.HttpServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * [Outbox] against a local stand-in server that fails requests on purpose.
+ */
+class OutboxTest {
+    private class Events : Outbox.Listener<String> {
+        val delivered = ConcurrentHashMap<Long, String>()
+        val deliveries = AtomicInteger()
+        val rejected = ConcurrentHashMap<Long, Throwable>()
+        val delays = Collections.synchronizedList(mutableListOf<Pair<Int, Long>>())
+        val done = CountDownLatch(1)
+        var expected = 1
+
+        override fun onDelivered(id: Long, result: String) {
+            delivered[id] = result
+            deliveries.incrementAndGet()
+            check()
+        }
+
+        override fun onRejected(id: Long, error: Throwable) {
+            rejected[id] = error
+            check()
+        }
+
+        override fun onRetryScheduled(id: Long, attempt: Int, delayMs: Long, error: Throwable) {
+            delays.add(Pair(attempt, delayMs))
+        }
+
+        private fun check() {
+            if (delivered.size + rejected.size >= expected)
+                done.countDown()
+        }
+
+        fun await() = assertTrue(done.await(20, TimeUnit.SECONDS))
+    }
+
+    private object Strings : Outbox.Codec<String> {
+        override fun encode(result: String) = result
+
+        override fun decode(text: String) = text
+    }
+
+    private lateinit var server: HttpServer
+    private lateinit var url: String
+    private lateinit var directory: File
+
+    // status of the next requests, 200 once it's empty
+    private val failures = ConcurrentLinkedQueue<Int>()
+    private val requests = AtomicInteger()
+    private val running = AtomicInteger()
+    private val maxRunning = AtomicInteger()
+    private var latencyMs = 0L
+
+    private val direct = Executor { it.run() }
+
+    @Before
+    fun setUp() {
+        directory = Files.createTempDirectory("outbox").toFile()
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/api/process") { exchange ->
+            requests.incrementAndGet()
+            maxRunning.accumulateAndGet(running.incrementAndGet()) { a, b -> maxOf(a, b) }
+            val payload = exchange.requestBody.readBytes()
+            Thread.sleep(latencyMs)
+            running.decrementAndGet()
+            val status = failures.poll() ?: 200
+            val response = if (status == 200) payload.reversedArray() else ByteArray(0)
+            exchange.sendResponseHeaders(status, if (response.isEmpty()) -1 else response.size.toLong())
+            exchange.responseBody.use { it.write(response) }
+        }
+        server.start()
+        url = "http://127.0.0.1:${server.address.port}/api/process"
+    }
+
+    @After
+    fun tearDown() {
+        server.stop(0)
+        directory.deleteRecursively()
+    }
+
+    private fun send(payload: String): String {
+        val (_, response, result) = url.httpPost().body(payload).responseString()
+        if (response.statusCode == 400)
+            throw Outbox.Rejected("Bad request")
+        return result.get()
+    }
+
+    private fun outbox(concurrency: Int = 2) = Outbox(
+        directory, direct, concurrency,
+        initialDelayMs = 20, maxDelayMs = 200, random = Random(7), codec = Strings, send = ::send
+    )
+
+    /**
+     * Files go once a listener got the result, in the background.
+     */
+    private fun awaitEmptyDirectory() {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (directory.list()!!.isNotEmpty()) {
+            assertTrue(directory.list()!!.joinToString(), System.currentTimeMillis() < deadline)
+            Thread.sleep(10)
+        }
+    }
+
+    @Test
+    fun retriesWithBackoffUntilDelivered() {
+        failures.addAll(listOf(503, 502, 500, 504))
+        val outbox = outbox()
+        val events = Events()
+        outbox.addListener(events)
+
+        val id = outbox.submit("payload")
+        events.await()
+
+        assertEquals("daolyap", events.delivered[id])
+        assertEquals(5, requests.get())
+        assertEquals(listOf(1, 2, 3, 4), events.delays.map { it.first })
+        events.delays.forEach { (attempt, delayMs) ->
+            val cap = minOf(200L, 20L shl (attempt - 1))
+            assertTrue("attempt $attempt waited $delayMs", delayMs in cap / 2..cap)
+        }
+        assertEquals(0, outbox.pending)
+        awaitEmptyDirectory()
+        outbox.shutdown()
+    }
+
+    @Test
+    fun rejectedSubmissionsAreNotRetried() {
+        failures.add(400)
+        val outbox = outbox()
+        val events = Events()
+        outbox.addListener(events)
+
+        val id = outbox.submit("payload")
+        events.await()
+
+        assertTrue(events.rejected[id] is Outbox.Rejected)
+        assertEquals(1, requests.get())
+        assertEquals(0, directory.list()!!.size)
+        outbox.shutdown()
+    }
+
+    @Test
+    fun retryNowLeavesRunningAttemptsAlone() {
+        latencyMs = 300
+        failures.add(503)
+        val outbox = outbox()
+        val events = Events()
+        outbox.addListener(events)
+
+        val id = outbox.submit("payload")
+        // the first attempt hasn't failed yet
+        outbox.retryNow()
+        while (requests.get() < 2)
+            Thread.sleep(5)
+        // the retry is waiting for the slow server
+        repeat(3) { outbox.retryNow() }
+        events.await()
+        Thread.sleep(2 * latencyMs)
+
+        assertEquals("daolyap", events.delivered[id])
+        assertEquals(1, events.deliveries.get())
+        assertTrue(events.rejected.isEmpty())
+        assertEquals(2, requests.get())
+        outbox.shutdown()
+    }
+
+    @Test
+    fun boundsConcurrentRequests() {
+        latencyMs = 100
+        repeat(3) { failures.add(503) }
+        val outbox = outbox(concurrency = 2)
+        val events = Events().apply { expected = 6 }
+        outbox.addListener(events)
+
+        val ids = (1..6).map { outbox.submit("payload $it") }
+        events.await()
+
+        assertEquals(ids.toSet(), events.delivered.keys)
+        assertEquals(2, maxRunning.get())
+        outbox.shutdown()
+    }
+
+    @Test
+    fun pendingSubmissionsSurviveRestart() {
+        repeat(100) { failures.add(503) }
+        val first = outbox()
+        val id = first.submit("payload")
+        while (requests.get() == 0)
+            Thread.sleep(10)
+        first.shutdown()
+        assertEquals(listOf("$id.json.gz"), directory.list()!!.toList())
+
+        failures.clear()
+        val second = outbox()
+        second.start()
+        val events = Events()
+        second.addListener(events)
+        events.await()
+
+        assertEquals("daolyap", events.delivered[id])
+        awaitEmptyDirectory()
+        second.shutdown()
+    }
+
+    @Test
+    fun deliveredResultsSurviveRestart() {
+        val first = outbox()
+        val id = first.submit("payload")
+        // delivered while nobody listens, only the result is left
+        while (directory.list()!!.toList() != listOf("$id.result.gz"))
+            Thread.sleep(10)
+        // the process dies before a listener is added
+        first.shutdown()
+
+        val second = outbox()
+        second.start()
+        val events = Events()
+        second.addListener(events)
+        events.await()
+
+        assertEquals("daolyap", events.delivered[id])
+        assertEquals(1, events.deliveries.get())
+        assertEquals(1, requests.get())
+        awaitEmptyDirectory()
+        second.shutdown()
+    }
+}
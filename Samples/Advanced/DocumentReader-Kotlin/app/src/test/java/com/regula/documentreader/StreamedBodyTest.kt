@@ -0,0 +1,107 @@
+package com.regula.documentreader
+
+import com.github.kittinunf.fuel.httpPost
+import com.github.kittinunf.result.Result
+import com.sun.net.httpserver.HttpServer
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.util.*
+import java.util.zip.Deflater
+import java.util.zip.GZIPInputStream
+
+/**
+ * [StreamedBody] against a local stand-in for the encrypted result service.
+ */
+class StreamedBodyTest {
+    private class Received(val encoding: String?, val transferEncoding: String?, val body: ByteArray, val wireBytes: Int)
+
+    private lateinit var server: HttpServer
+    private var received: Received? = null
+    private lateinit var url: String
+
+    // base64 like the images in rawResult, but repetitive enough to compress
+    private val payload = buildString {
+        val random = Random(1)
+        val alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+        append("{\"List\":[\"")
+        repeat(400_000) { append(alphabet[random.nextInt(8)]) }
+        append("\"]}")
+    }.toByteArray()
+
+    @Before
+    fun startServer() {
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/api/process") { exchange ->
+            val wire = exchange.requestBody.readBytes()
+            val encoding = exchange.requestHeaders.getFirst("Content-Encoding")
+            val body = if (encoding == "gzip") GZIPInputStream(wire.inputStream()).readBytes() else wire
+            received = Received(
+                encoding,
+                exchange.requestHeaders.getFirst("Transfer-Encoding"),
+                body,
+                wire.size
+            )
+            val response = "{}".toByteArray()
+            exchange.sendResponseHeaders(200, response.size.toLong())
+            exchange.responseBody.use { it.write(response) }
+        }
+        server.start()
+        url = "http://127.0.0.1:${server.address.port}/api/process"
+    }
+
+    @After
+    fun stopServer() = server.stop(0)
+
+    @Test
+    fun sendsPlainBodyChunked() {
+        val body = StreamedBody(chunkSize = 1024) { it.write(payload) }
+        val (_, _, result) = body.applyTo(url.httpPost()).responseString()
+
+        assertTrue(result is Result.Success)
+        val received = received!!
+        assertNull(received.encoding)
+        assertEquals("chunked", received.transferEncoding)
+        assertArrayEquals(payload, received.body)
+    }
+
+    @Test
+    fun sendsGzippedBody() {
+        val fast = send(Deflater.BEST_SPEED)
+        val best = send(Deflater.BEST_COMPRESSION)
+
+        assertEquals("gzip", fast.encoding)
+        assertArrayEquals(payload, fast.body)
+        assertArrayEquals(payload, best.body)
+        // 8 symbols take 3 of every 8 bits, even the fastest level gets well below half
+        val ratio = fast.wireBytes.toDouble() / payload.size
+        assertTrue("level 1 ratio $ratio", ratio < 0.5)
+        assertTrue(best.wireBytes <= fast.wireBytes)
+    }
+
+    @Test
+    fun failsWhenProducerFails() {
+        val body = StreamedBody(chunkSize = 1024) {
+            it.write(payload, 0, payload.size / 2)
+            throw IOException("No ContainerList.List in rawResult")
+        }
+        val (_, _, result) = body.applyTo(url.httpPost()).responseString()
+
+        assertTrue(result is Result.Failure)
+        received?.let { assertTrue(it.body.size < payload.size) }
+    }
+
+    private fun send(level: Int): Received {
+        received = null
+        val body = StreamedBody(gzip = true, level = level, chunkSize = 8 * 1024) { it.write(payload) }
+        val (_, _, result) = body.applyTo(url.httpPost()).responseString()
+        assertTrue(result is Result.Success)
+        return received!!
+    }
+}
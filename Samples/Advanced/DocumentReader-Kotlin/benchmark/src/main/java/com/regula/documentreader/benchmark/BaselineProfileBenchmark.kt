@@ -0,0 +1,45 @@
+package com.regula.documentreader.benchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+import com.regula.documentreader.benchmark.StartupBenchmark.Companion.TARGET_PACKAGE
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cold start with and without the shipped baseline profile, the difference is what a first run
+ * after install gains from it.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileBenchmark {
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun startupNoCompilation() = startup(CompilationMode.None())
+
+    @Test
+    fun startupBaselineProfile() =
+        startup(CompilationMode.Partial(baselineProfileMode = BaselineProfileMode.Require))
+
+    private fun startup(compilationMode: CompilationMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = compilationMode,
+        iterations = 10,
+        startupMode = StartupMode.COLD,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "scenarioPicker")), 10_000)
+    }
+}
@@ -0,0 +1,44 @@
+package com.regula.documentreader.benchmark
+
+import androidx.benchmark.macro.ExperimentalBaselineProfilesApi
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.Until
+import com.regula.documentreader.benchmark.StartupBenchmark.Companion.TARGET_PACKAGE
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Collects the startup part of app/src/main/baseline-prof.txt. Needs a rooted device or a
+ * userdebug emulator (API 28+):
+ *
+ * `./gradlew :benchmark:connectedBenchmarkAndroidTest
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.regula.documentreader.benchmark.BaselineProfileGenerator`
+ *
+ * then replace the startup sections of app/src/main/baseline-prof.txt with the printed profile.
+ * The stub reader can't reach the results screens, so their sections come from the same run on a
+ * licensed debug build with one scan made before the journey ends.
+ */
+@OptIn(ExperimentalBaselineProfilesApi::class)
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun startup() = baselineProfileRule.collectBaselineProfile(packageName = TARGET_PACKAGE) {
+        pressHome()
+        startActivityAndWait()
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "scenarioPicker")), 10_000)
+        device.findObject(By.res(TARGET_PACKAGE, "recyclerView"))?.let {
+            it.setGestureMargin(device.displayWidth / 5)
+            it.fling(Direction.DOWN)
+            it.fling(Direction.UP)
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.regula.documentreader.benchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.filters.LargeTest
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Launches MainActivity of the app's benchmark build and waits for the scenario picker.
+ * MainActivity calls reportFullyDrawn() once the picker is visible, so timeToFullDisplayMs is the
+ * number to gate regressions on.
+ *
+ * Run with `./gradlew :benchmark:connectedBenchmarkAndroidTest`.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class StartupBenchmark(private val startupMode: StartupMode) {
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun startupToScenarioPicker() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = CompilationMode.DEFAULT,
+        iterations = ITERATIONS,
+        startupMode = startupMode,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "scenarioPicker")), TIMEOUT_MS)
+    }
+
+    companion object {
+        const val TARGET_PACKAGE = "com.regula.documentreader"
+        private const val ITERATIONS = 10
+        private const val TIMEOUT_MS = 10_000L
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "mode={0}")
+        fun parameters() = listOf(StartupMode.COLD, StartupMode.WARM, StartupMode.HOT)
+    }
+}
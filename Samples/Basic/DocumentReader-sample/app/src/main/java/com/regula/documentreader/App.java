@@ -0,0 +1,12 @@
+package com.regula.documentreader;
+
+import android.app.Application;
+
+public class App extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ReaderBootstrap.start(this);
+    }
+}
@@ -31,8 +31,6 @@ import android.widget.Toast;
 
 import com.regula.documentreader.api.DocumentReader;
 import com.regula.documentreader.api.completions.IDocumentReaderCompletion;
-import com.regula.documentreader.api.completions.IDocumentReaderInitCompletion;
-import com.regula.documentreader.api.completions.IDocumentReaderPrepareCompletion;
 import com.regula.documentreader.api.enums.DocReaderAction;
 import com.regula.documentreader.api.enums.eGraphicFieldType;
 import com.regula.documentreader.api.enums.eVisualFieldType;
@@ -40,20 +38,24 @@ import com.regula.documentreader.api.errors.DocumentReaderException;
 import com.regula.documentreader.api.results.DocumentReaderResults;
 import com.regula.documentreader.api.results.DocumentReaderScenario;
 import com.regula.documentreader.api.results.DocumentReaderTextField;
+import com.regula.documentreader.api.results.DocumentReaderValue;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import static android.graphics.BitmapFactory.decodeStream;
-
 public class MainActivity extends AppCompatActivity {
 
     private static final int REQUEST_BROWSE_PICTURE = 11;
     private static final int PERMISSIONS_REQUEST_READ_EXTERNAL_STORAGE = 22;
     private static final String MY_SHARED_PREFS = "MySharedPrefs";
     private static final String DO_RFID = "doRfid";
+    private static final String TAG = "MainActivity";
+    // upper bound for the encoded image, the subsampled and the scaled bitmap together
+    private static final long MAX_DECODE_BYTES = 48L * 1024 * 1024;
+    private static final int MAX_SAMPLE_SIZE = 64;
 
     private TextView nameTv;
     private TextView showScanner;
@@ -69,6 +71,8 @@ public class MainActivity extends AppCompatActivity {
     private SharedPreferences sharedPreferences;
     private boolean doRfid;
     private AlertDialog loadingDialog;
+    private AlertDialog initDialog;
+    private boolean initCompleted;
 
     private int selectedPosition;
 
@@ -95,142 +99,134 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
 
-        if(!DocumentReader.Instance().getDocumentReaderIsReady()) {
-            final AlertDialog initDialog = showDialog("Initializing");
-
-            //Reading the license from raw resource file
-            try {
-                InputStream licInput = getResources().openRawResource(R.raw.regula);
-                int available = licInput.available();
-                final byte[] license = new byte[available];
-                //noinspection ResultOfMethodCallIgnored
-                licInput.read(license);
-
-                //preparing database files, it will be downloaded from network only one time and stored on user device
-                DocumentReader.Instance().prepareDatabase(MainActivity.this, "Full", new IDocumentReaderPrepareCompletion() {
-                            @Override
-                            public void onPrepareProgressChanged(int progress) {
-                                initDialog.setTitle("Downloading database: " + progress + "%");
-                            }
+        if (!initCompleted) {
+            if (!DocumentReader.Instance().getDocumentReaderIsReady()) {
+                initDialog = showDialog("Initializing");
+            }
+            //the reader is prepared in the background since App.onCreate
+            ReaderBootstrap.start(this);
+            ReaderBootstrap.addListener(bootstrapListener);
+        }
+    }
 
-                            @Override
-                            public void onPrepareCompleted(boolean status, DocumentReaderException error) {
-
-                                //Initializing the reader
-                                DocumentReader.Instance().initializeReader(MainActivity.this, license, new IDocumentReaderInitCompletion() {
-                                    @Override
-                                    public void onInitCompleted(boolean success, DocumentReaderException error) {
-                                        if (initDialog.isShowing()) {
-                                            initDialog.dismiss();
-                                        }
-
-                                        DocumentReader.Instance().customization().edit().setShowHelpAnimation(false).apply();
-
-                                        //initialization successful
-                                        if (success) {
-                                            showScanner.setOnClickListener(new View.OnClickListener() {
-                                                @Override
-                                                public void onClick(View view) {
-                                                    clearResults();
-
-                                                    //starting video processing
-                                                    DocumentReader.Instance().showScanner(MainActivity.this, completion);
-                                                }
-                                            });
-
-                                            recognizeImage.setOnClickListener(new View.OnClickListener() {
-                                                @Override
-                                                public void onClick(View view) {
-                                                    clearResults();
-                                                    //checking for image browsing permissions
-                                                    if (ContextCompat.checkSelfPermission(MainActivity.this,
-                                                            Manifest.permission.READ_EXTERNAL_STORAGE)
-                                                            != PackageManager.PERMISSION_GRANTED) {
-
-                                                        ActivityCompat.requestPermissions(MainActivity.this,
-                                                                new String[]{Manifest.permission.READ_EXTERNAL_STORAGE},
-                                                                PERMISSIONS_REQUEST_READ_EXTERNAL_STORAGE);
-                                                    } else {
-                                                        //start image browsing
-                                                        createImageBrowsingRequest();
-                                                    }
-                                                }
-                                            });
-
-                                            if (DocumentReader.Instance().isRFIDAvailableForUse()) {
-                                                //reading shared preferences
-                                                doRfid = sharedPreferences.getBoolean(DO_RFID, false);
-                                                doRfidCb.setChecked(doRfid);
-                                                doRfidCb.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
-                                                    @Override
-                                                    public void onCheckedChanged(CompoundButton compoundButton, boolean checked) {
-                                                        doRfid = checked;
-                                                        sharedPreferences.edit().putBoolean(DO_RFID, checked).apply();
-                                                    }
-                                                });
-                                            } else {
-                                                doRfidCb.setVisibility(View.GONE);
-                                            }
-
-                                            //getting current processing scenario and loading available scenarios to ListView
-                                            String currentScenario = DocumentReader.Instance().processParams().scenario;
-                                            ArrayList<String> scenarios = new ArrayList<>();
-                                            for (DocumentReaderScenario scenario : DocumentReader.Instance().availableScenarios) {
-                                                scenarios.add(scenario.name);
-                                            }
-
-                                            //setting default scenario
-                                            if (currentScenario == null || currentScenario.isEmpty()) {
-                                                currentScenario = scenarios.get(0);
-                                                DocumentReader.Instance().processParams().scenario = currentScenario;
-                                            }
-
-                                            final ScenarioAdapter adapter = new ScenarioAdapter(MainActivity.this, android.R.layout.simple_list_item_1, scenarios);
-                                            selectedPosition = 0;
-                                            try {
-                                                selectedPosition = adapter.getPosition(currentScenario);
-                                            } catch (Exception ex) {
-                                                ex.printStackTrace();
-                                            }
-                                            scenarioLv.setAdapter(adapter);
-
-                                            scenarioLv.setSelection(selectedPosition);
-
-                                            scenarioLv.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-                                                @Override
-                                                public void onItemClick(AdapterView<?> adapterView, View view, int i, long l) {
-                                                    //setting selected scenario to DocumentReader params
-                                                    DocumentReader.Instance().processParams().scenario = adapter.getItem(i);
-                                                    selectedPosition = i;
-                                                    adapter.notifyDataSetChanged();
-
-                                                }
-                                            });
-
-                                        }
-                                        //Initialization was not successful
-                                        else {
-                                            Toast.makeText(MainActivity.this, "Init failed:" + error, Toast.LENGTH_LONG).show();
-                                        }
-                                    }
-                                });
-                            }
-                        });
+    private final ReaderBootstrap.Listener bootstrapListener = new ReaderBootstrap.Listener() {
+        @Override
+        public void onPrepareProgressChanged(int progress) {
+            if (initDialog != null) {
+                initDialog.setTitle("Downloading database: " + progress + "%");
+            }
+        }
 
-                licInput.close();
+        @Override
+        public void onReady(boolean success, Throwable error) {
+            if (initDialog != null && initDialog.isShowing()) {
+                initDialog.dismiss();
+            }
+            initDialog = null;
 
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            //initialization successful
+            if (success) {
+                onInitComplete();
+            }
+            //Initialization was not successful
+            else {
+                Toast.makeText(MainActivity.this, "Init failed:" + error, Toast.LENGTH_LONG).show();
             }
         }
-    }
+    };
 
+    private void onInitComplete() {
+        initCompleted = true;
+        showScanner.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                clearResults();
 
+                //starting video processing
+                DocumentReader.Instance().showScanner(MainActivity.this, completion);
+            }
+        });
+
+        recognizeImage.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                clearResults();
+                //checking for image browsing permissions
+                if (ContextCompat.checkSelfPermission(MainActivity.this,
+                        Manifest.permission.READ_EXTERNAL_STORAGE)
+                        != PackageManager.PERMISSION_GRANTED) {
+
+                    ActivityCompat.requestPermissions(MainActivity.this,
+                            new String[]{Manifest.permission.READ_EXTERNAL_STORAGE},
+                            PERMISSIONS_REQUEST_READ_EXTERNAL_STORAGE);
+                } else {
+                    //start image browsing
+                    createImageBrowsingRequest();
+                }
+            }
+        });
+
+        if (DocumentReader.Instance().isRFIDAvailableForUse()) {
+            //reading shared preferences
+            doRfid = sharedPreferences.getBoolean(DO_RFID, false);
+            doRfidCb.setChecked(doRfid);
+            doRfidCb.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+                @Override
+                public void onCheckedChanged(CompoundButton compoundButton, boolean checked) {
+                    doRfid = checked;
+                    sharedPreferences.edit().putBoolean(DO_RFID, checked).apply();
+                }
+            });
+        } else {
+            doRfidCb.setVisibility(View.GONE);
+        }
+
+        //getting current processing scenario and loading available scenarios to ListView
+        String currentScenario = DocumentReader.Instance().processParams().scenario;
+        ArrayList<String> scenarios = new ArrayList<>();
+        for (DocumentReaderScenario scenario : DocumentReader.Instance().availableScenarios) {
+            scenarios.add(scenario.name);
+        }
+
+        //setting default scenario
+        if (currentScenario == null || currentScenario.isEmpty()) {
+            currentScenario = scenarios.get(0);
+            DocumentReader.Instance().processParams().scenario = currentScenario;
+        }
+
+        final ScenarioAdapter adapter = new ScenarioAdapter(MainActivity.this, android.R.layout.simple_list_item_1, scenarios);
+        selectedPosition = 0;
+        try {
+            selectedPosition = adapter.getPosition(currentScenario);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        scenarioLv.setAdapter(adapter);
+
+        scenarioLv.setSelection(selectedPosition);
+
+        scenarioLv.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> adapterView, View view, int i, long l) {
+                //setting selected scenario to DocumentReader params
+                DocumentReader.Instance().processParams().scenario = adapter.getItem(i);
+                selectedPosition = i;
+                adapter.notifyDataSetChanged();
+
+            }
+        });
+    }
 
     @Override
     protected void onPause() {
         super.onPause();
 
+        ReaderBootstrap.removeListener(bootstrapListener);
+        if (initDialog != null) {
+            initDialog.dismiss();
+            initDialog = null;
+        }
+
         if(loadingDialog!=null){
             loadingDialog.dismiss();
             loadingDialog = null;
@@ -247,6 +243,10 @@ public class MainActivity extends AppCompatActivity {
                 if (data.getData() != null) {
                     Uri selectedImage = data.getData();
                     Bitmap bmp = getBitmap(selectedImage, 1920, 1080);
+                    if (bmp == null) {
+                        Toast.makeText(MainActivity.this, "Unable to read the image", Toast.LENGTH_LONG).show();
+                        return;
+                    }
 
                     loadingDialog = showDialog("Processing image");
 
@@ -327,9 +327,10 @@ public class MainActivity extends AppCompatActivity {
 
             // through all text fields
             if(results.textResult != null && results.textResult.fields != null) {
+                // the field already holds its value, looking it up by type would scan all fields again
                 for (DocumentReaderTextField textField : results.textResult.fields) {
-                    String value = results.getTextFieldValueByType(textField.fieldType, textField.lcid);
-                    Log.d("MainActivity", value + "\n");
+                    DocumentReaderValue value = textField.value();
+                    Log.d("MainActivity", (value != null ? value.value : null) + "\n");
                 }
             }
 
@@ -363,53 +364,105 @@ public class MainActivity extends AppCompatActivity {
         startActivityForResult(Intent.createChooser(intent, "Select Picture"), REQUEST_BROWSE_PICTURE);
     }
 
-    // loads bitmap from uri
+    // loads bitmap from uri, the uri is opened and read only once
     private Bitmap getBitmap(Uri selectedImage, int targetWidth, int targetHeight) {
-        ContentResolver resolver = MainActivity.this.getContentResolver();
-        InputStream is = null;
-        try {
-            is = resolver.openInputStream(selectedImage);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        byte[] encoded = readBytes(selectedImage);
+        if (encoded == null) {
+            return null;
         }
+
         final BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
-        BitmapFactory.decodeStream(is, null, options);
+        BitmapFactory.decodeByteArray(encoded, 0, encoded.length, options);
+        final int width = options.outWidth;
+        final int height = options.outHeight;
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
 
-        //Re-reading the input stream to move it's pointer to start
-        try {
-            is = resolver.openInputStream(selectedImage);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        // Fit the long side of the image to the long side of the target, never upscale
+        boolean portrait = height > width;
+        int boxWidth = portrait == targetHeight > targetWidth ? targetWidth : targetHeight;
+        int boxHeight = boxWidth == targetWidth ? targetHeight : targetWidth;
+        double scale = Math.min(1.0, Math.min((double) boxWidth / width, (double) boxHeight / height));
+        int outWidth = Math.max(1, (int) Math.round(width * scale));
+        int outHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Calculate inSampleSize, coarser if the decode wouldn't fit into MAX_DECODE_BYTES
+        options.inSampleSize = calculateInSampleSize(options, outWidth, outHeight);
+        long peakBytes = peakBytes(encoded.length, width, height, options.inSampleSize, outWidth, outHeight);
+        while (peakBytes > MAX_DECODE_BYTES && options.inSampleSize < MAX_SAMPLE_SIZE) {
+            options.inSampleSize *= 2;
+            peakBytes = peakBytes(encoded.length, width, height, options.inSampleSize, outWidth, outHeight);
+        }
+        Log.d(TAG, "Decoding " + width + "x" + height + " to " + outWidth + "x" + outHeight
+                + ", peak memory " + peakBytes / 1024 + " KB");
+
+        // Scale the rest of the way from the subsampled size to the exact output size
+        if (sampled(width, options.inSampleSize) != outWidth) {
+            options.inScaled = true;
+            options.inDensity = width;
+            options.inTargetDensity = outWidth * options.inSampleSize;
         }
-        // Calculate inSampleSize
-        options.inSampleSize = calculateInSampleSize(options, targetWidth, targetHeight);
         options.inPreferredConfig = Bitmap.Config.ARGB_8888;
-        // Decode bitmap with inSampleSize set
+        // Decode bitmap with inSampleSize set, from the same bytes
         options.inJustDecodeBounds = false;
-        return decodeStream(is, null, options);
+        return BitmapFactory.decodeByteArray(encoded, 0, encoded.length, options);
     }
 
-    // see https://developer.android.com/topic/performance/graphics/load-bitmap.html
-    private int calculateInSampleSize(BitmapFactory.Options options, int bitmapWidth, int bitmapHeight) {
-        // Raw height and width of image
-        final int height = options.outHeight;
-        final int width = options.outWidth;
-        int inSampleSize = 1;
-
-        if (height > bitmapHeight || width > bitmapWidth) {
+    private static int sampled(int size, int sampleSize) {
+        return (size + sampleSize - 1) / sampleSize;
+    }
 
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
+    // the encoded image, the subsampled bitmap and the scaled bitmap are alive at the same time
+    private static long peakBytes(int encodedBytes, int width, int height, int sampleSize,
+                                  int outWidth, int outHeight) {
+        int sampledWidth = sampled(width, sampleSize);
+        long bytes = encodedBytes + (long) sampledWidth * sampled(height, sampleSize) * 4;
+        if (sampledWidth != outWidth) {
+            bytes += (long) outWidth * outHeight * 4;
+        }
+        return bytes;
+    }
 
-            // Calculate the largest inSampleSize value that is a power of 2 and keeps both
-            // height and width larger than the requested height and width.
-            while ((halfHeight / inSampleSize) > bitmapHeight
-                    && (halfWidth / inSampleSize) > bitmapWidth) {
-                inSampleSize *= 2;
+    // reads the whole encoded image, the stream is always closed
+    private byte[] readBytes(Uri uri) {
+        ContentResolver resolver = MainActivity.this.getContentResolver();
+        InputStream is = null;
+        try {
+            is = resolver.openInputStream(uri);
+            if (is == null) {
+                return null;
+            }
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(is.available(), 8192));
+            byte[] buffer = new byte[16384];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                encoded.write(buffer, 0, read);
+            }
+            return encoded.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
         }
+    }
 
+    // Largest power of 2 inSampleSize that keeps both sides at least as large as the output,
+    // see https://developer.android.com/topic/performance/graphics/load-bitmap.html
+    private int calculateInSampleSize(BitmapFactory.Options options, int outWidth, int outHeight) {
+        int inSampleSize = 1;
+        while (options.outWidth / (inSampleSize * 2) >= outWidth
+                && options.outHeight / (inSampleSize * 2) >= outHeight) {
+            inSampleSize *= 2;
+        }
         return inSampleSize;
     }
 
@@ -0,0 +1,178 @@
+package com.regula.documentreader;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.regula.documentreader.api.DocumentReader;
+import com.regula.documentreader.api.completions.IDocumentReaderInitCompletion;
+import com.regula.documentreader.api.completions.IDocumentReaderPrepareCompletion;
+import com.regula.documentreader.api.errors.DocumentReaderException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Brings the reader up once per process, started from App.onCreate.
+// The license is read on a background thread while the database is being prepared,
+// the reader is initialized as soon as both are done.
+// start, addListener and removeListener must be called on the main thread,
+// listeners are called on the main thread as well.
+public class ReaderBootstrap {
+
+    public static final int IDLE = 0;
+    public static final int PREPARING = 1;
+    public static final int READY = 2;
+    public static final int FAILED = 3;
+
+    public interface Listener {
+        void onPrepareProgressChanged(int progress);
+
+        void onReady(boolean success, Throwable error);
+    }
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static final List<Listener> listeners = new ArrayList<>();
+
+    private static volatile int state = IDLE;
+    private static volatile CountDownLatch readyLatch = new CountDownLatch(1);
+    private static volatile Throwable error;
+
+    private ReaderBootstrap() {
+    }
+
+    public static int getState() {
+        return state;
+    }
+
+    public static void start(Context context) {
+        if (state == PREPARING || state == READY) {
+            return;
+        }
+        if (DocumentReader.Instance().getDocumentReaderIsReady()) {
+            finish(true, null);
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        state = PREPARING;
+        error = null;
+        if (readyLatch.getCount() == 0) {
+            readyLatch = new CountDownLatch(1);
+        }
+
+        //reading the license from raw resource file in parallel with the database preparation
+        final Future<byte[]> license = executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                return readLicense(appContext);
+            }
+        });
+
+        //preparing database files, it will be downloaded from network only one time and stored on user device
+        DocumentReader.Instance().prepareDatabase(appContext, "Full", new IDocumentReaderPrepareCompletion() {
+            @Override
+            public void onPrepareProgressChanged(int progress) {
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onPrepareProgressChanged(progress);
+                }
+            }
+
+            @Override
+            public void onPrepareCompleted(boolean status, DocumentReaderException error) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            final byte[] bytes = license.get();
+                            handler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    initializeReader(appContext, bytes);
+                                }
+                            });
+                        } catch (final ExecutionException e) {
+                            handler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    finish(false, e.getCause());
+                                }
+                            });
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static void initializeReader(Context context, byte[] license) {
+        DocumentReader.Instance().initializeReader(context, license, new IDocumentReaderInitCompletion() {
+            @Override
+            public void onInitCompleted(boolean success, DocumentReaderException error) {
+                DocumentReader.Instance().customization().edit().setShowHelpAnimation(false).apply();
+                finish(success, error);
+            }
+        });
+    }
+
+    private static byte[] readLicense(Context context) throws IOException {
+        InputStream licInput = context.getResources().openRawResource(R.raw.regula);
+        try {
+            ByteArrayOutputStream license = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = licInput.read(buffer)) != -1) {
+                license.write(buffer, 0, read);
+            }
+            return license.toByteArray();
+        } finally {
+            licInput.close();
+        }
+    }
+
+    private static void finish(boolean success, Throwable throwable) {
+        // error first, whoever sees the final state sees its error too
+        error = throwable;
+        state = success ? READY : FAILED;
+        readyLatch.countDown();
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onReady(success, throwable);
+        }
+    }
+
+    // if the bootstrap has already finished, onReady is called right away
+    public static void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        if (state == READY || state == FAILED) {
+            listener.onReady(state == READY, error);
+        }
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // blocks until the current attempt finishes, must not be called on the main thread.
+    // false means the attempt failed, TimeoutException that it is still running
+    public static boolean awaitReady(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (!readyLatch.await(timeout, unit)) {
+            throw new TimeoutException("Reader not ready after " + timeout + " " + unit);
+        }
+        return state == READY;
+    }
+}